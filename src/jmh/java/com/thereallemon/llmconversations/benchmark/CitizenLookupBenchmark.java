@@ -0,0 +1,77 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IColonyManager;
+import com.thereallemon.llmconversations.state.CitizenRef;
+import net.minecraft.world.level.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the citizen a player is talking to, which happens on every chat message
+ * Compares the old scan over every citizen of every colony with resolving a {@link CitizenRef}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CitizenLookupBenchmark {
+    private static final int CITIZENS_PER_COLONY = 50;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int citizens;
+
+    private IColonyManager colonyManager;
+    private CitizenRef target;
+
+    @Setup
+    public void setUp() {
+        int colonyCount = Math.max(1, citizens / CITIZENS_PER_COLONY);
+        List<IColony> colonies = new ArrayList<>(colonyCount);
+        for (int id = 1; id <= colonyCount; id++) {
+            colonies.add(Fakes.colonyWithCitizens(id, Level.OVERWORLD, citizens / colonyCount));
+        }
+        colonyManager = Fakes.colonyManager(colonies);
+
+        // The last citizen of the last colony is the worst case for a scan
+        target = new CitizenRef(Level.OVERWORLD, colonyCount, citizens / colonyCount);
+    }
+
+    /**
+     * The previous lookup, qualified by colony; without that it returns the first colony's citizen with the ID
+     */
+    @Benchmark
+    public ICitizenData scanAllColonies() {
+        int colonyId = target.colonyId();
+        int citizenId = target.citizenId();
+        return colonyManager
+            .getAllColonies()
+            .stream()
+            .filter(colony -> colony.getID() == colonyId)
+            .flatMap(colony -> colony.getCitizenManager().getCitizens().stream())
+            .filter(citizen -> citizen.getId() == citizenId)
+            .findFirst()
+            .orElse(null);
+    }
+
+    @Benchmark
+    public ICitizenData resolveRef() {
+        return target.resolve(colonyManager);
+    }
+}
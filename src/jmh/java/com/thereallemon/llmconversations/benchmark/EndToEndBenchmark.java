@@ -0,0 +1,180 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.llm.ChatMessage;
+import com.thereallemon.llmconversations.llm.LLMClient;
+import com.thereallemon.llmconversations.llm.RequestContext;
+import com.thereallemon.llmconversations.llm.RequestScheduler;
+import com.thereallemon.llmconversations.llm.RequestType;
+import com.thereallemon.llmconversations.llm.SystemPrompt;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end latency and throughput benchmark of the request path
+ * Drives the real {@link LLMClient} (scheduler, retries, streaming parser) against a
+ * {@link MockOpenRouterServer} and hops back to a single "server thread" the way
+ * LLMConversationHandler does, so no API credits are spent.
+ * <p>
+ * Run with {@code ./gradlew loadBenchmark -PbenchArgs="concurrency=1,8,32 latency=lognormal:300:0.5"}.
+ * Arguments (all optional):
+ * <ul>
+ *   <li>concurrency - comma-separated levels to measure (default 1,8,32)</li>
+ *   <li>requests - requests per level (default 200), warmup - untimed requests first (default 20)</li>
+ *   <li>latency - none, fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA (default lognormal:200:0.5)</li>
+ *   <li>rate429, rate500, empty - fault rates between 0 and 1 (default 0)</li>
+ *   <li>retryAfter - Retry-After seconds on 429 responses (default 0)</li>
+ *   <li>drip - delay between body chunks in ms (default 0)</li>
+ *   <li>stream - use streaming responses (default true)</li>
+ * </ul>
+ */
+public class EndToEndBenchmark {
+    private static final int HISTORY_MESSAGES = 6;
+    private static final int COLONIES = 4;
+    private static final int PLAYERS = 16;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "1,8,32").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+        int requests = Integer.parseInt(options.getOrDefault("requests", "200"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20"));
+        boolean stream = Boolean.parseBoolean(options.getOrDefault("stream", "true"));
+
+        MockOpenRouterServer.Faults faults = new MockOpenRouterServer.Faults(
+            LatencyModel.parse(options.getOrDefault("latency", "lognormal:200:0.5")),
+            Double.parseDouble(options.getOrDefault("rate429", "0")),
+            Double.parseDouble(options.getOrDefault("rate500", "0")),
+            Double.parseDouble(options.getOrDefault("empty", "0")),
+            Integer.parseInt(options.getOrDefault("retryAfter", "0")),
+            Long.parseLong(options.getOrDefault("drip", "0")),
+            42
+        );
+
+        try (MockOpenRouterServer server = new MockOpenRouterServer(faults)) {
+            // The OpenAI-compatible provider speaks the same protocol as OpenRouter and takes a base URL
+            Map<String, Object> config = new HashMap<>();
+            config.put("providers.default_provider", "openai_compatible");
+            config.put("providers.openai_compatible_base_url", server.getBaseUrl());
+            config.put("llm_settings.model", "mock/benchmark");
+            config.put("response_cache.response_cache_enabled", false);
+            config.put("resilience.retry_base_delay_ms", 50);
+            config.put("resilience.circuit_breaker_threshold", 0);
+            config.put("network.connection_pool_size", 64);
+            InMemoryConfig.load(config);
+
+            System.out.printf("Mock server at %s, %d requests per level, streaming %s%n",
+                server.getBaseUrl(), requests, stream);
+            System.out.printf("%-12s %10s %10s %10s %10s %12s %8s%n",
+                "concurrency", "p50 ms", "p95 ms", "p99 ms", "max ms", "req/s", "failed");
+
+            for (int level : levels) {
+                LLMConfig.CLIENT.maxConcurrentRequests.set(level);
+                run(level, warmup, stream);
+                Result result = run(level, requests, stream);
+                System.out.printf("%-12d %10.1f %10.1f %10.1f %10.1f %12.1f %8d%n",
+                    level, result.percentile(50), result.percentile(95), result.percentile(99),
+                    result.percentile(100), result.throughput(), result.failed());
+            }
+
+            RequestScheduler scheduler = RequestScheduler.getInstance();
+            System.out.printf("Server saw %d requests (%d rate limited, %d errors, %d empty); "
+                    + "scheduler wait avg %.1fms, max %.1fms%n",
+                server.getRequestCount(), server.getRateLimitedCount(), server.getServerErrorCount(),
+                server.getEmptyResponseCount(), scheduler.getAverageWaitMillis(), scheduler.getMaxWaitMillis());
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Send requests with at most {@code concurrency} outstanding and measure each one from
+     * submission until its callback runs on the server thread
+     */
+    private static Result run(int concurrency, int requests, boolean stream) throws InterruptedException {
+        ExecutorService serverThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Server thread"));
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+        AtomicInteger failed = new AtomicInteger();
+        LLMClient client = LLMClient.getInstance();
+        SystemPrompt systemPrompt = new SystemPrompt(
+            "You are Alice, a builder in the colony of Testville. You are speaking with Steve. "
+                + "Be friendly, stay in character, and keep responses brief (1-3 sentences).",
+            "Right now: Your happiness is 7/10.");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            int index = i;
+            RequestContext context = new RequestContext(RequestType.CHAT,
+                new UUID(0, 1 + i % PLAYERS), Level.OVERWORLD, i % COLONIES, i % PLAYERS);
+            List<ChatMessage> history = buildHistory(i);
+            long submitted = System.nanoTime();
+
+            CompletableFuture<String> request = stream ?
+                client.sendChatRequestStreaming("mock/benchmark", systemPrompt, history, partial -> { }, context) :
+                client.sendChatRequest("mock/benchmark", systemPrompt, history, context);
+
+            request.whenComplete((response, throwable) -> serverThread.execute(() -> {
+                latencies[index] = System.nanoTime() - submitted;
+                if (throwable != null) {
+                    failed.incrementAndGet();
+                }
+                permits.release();
+                done.countDown();
+            }));
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        serverThread.shutdown();
+
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, failed.get());
+    }
+
+    private static List<ChatMessage> buildHistory(int requestIndex) {
+        List<ChatMessage> history = new ArrayList<>(HISTORY_MESSAGES + 1);
+        for (int i = 0; i < HISTORY_MESSAGES; i += 2) {
+            history.add(new ChatMessage("user", "How is the work on the town hall going? (" + i + ")"));
+            history.add(new ChatMessage("assistant", "It's coming along nicely, we should finish the roof soon."));
+        }
+        history.add(new ChatMessage("user", "Question number " + requestIndex + ": what do you need from me?"));
+        return history;
+    }
+
+    /**
+     * Latencies of one run, sorted, in nanoseconds
+     */
+    private record Result(long[] latencies, long elapsedNanos, int failed) {
+
+        double percentile(double percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+        }
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IColonyManager;
+import com.minecolonies.api.colony.colonyEvents.descriptions.IBuildingEventDescription;
+import com.minecolonies.api.colony.colonyEvents.descriptions.ICitizenEventDescription;
+import com.minecolonies.api.colony.colonyEvents.descriptions.IColonyEventDescription;
+import com.minecolonies.api.colony.managers.interfaces.ICitizenManager;
+import com.minecolonies.api.entity.citizen.citizenhandlers.ICitizenHappinessHandler;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Lightweight fakes of MineColonies citizens and colonies for benchmarks
+ * The API interfaces are large, so fakes are dynamic proxies that answer the methods the mod
+ * calls and return defaults (null, 0, false) for everything else.
+ */
+public class Fakes {
+    private static final String[] CITIZEN_EVENTS = {"Citizen Born", "Citizen Spawned", "Citizen Grown Up", "Citizen Died"};
+    private static final String[] BUILDING_EVENTS = {"Building Built", "Building Upgraded", "Building Repaired", "Building Deconstructed"};
+    private static final String[] BUILDINGS = {"Town Hall", "Builder's Hut", "Farm", "Bakery", "Warehouse"};
+
+    /**
+     * Create a proxy implementing an interface
+     * @param type The interface
+     * @param answers Results by method name, computed from the call's arguments
+     */
+    public static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(self);
+                case "equals" -> self == args[0];
+                case "toString" -> "Fake" + type.getSimpleName();
+                default -> defaultValue(method.getReturnType());
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * A colony with a number of recent events, a mix of citizen and building events
+     */
+    public static IColony colony(int id, String name, int eventCount) {
+        List<IColonyEventDescription> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            events.add(i % 2 == 0 ? citizenEvent(i) : buildingEvent(i));
+        }
+
+        // Looked up by reflection so the benchmark doesn't depend on the manager's package
+        Class<?> managerType;
+        try {
+            managerType = IColony.class.getMethod("getEventDescriptionManager").getReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        Object eventManager = of(managerType, Map.of("getEventDescriptions", args -> events));
+
+        return of(IColony.class, Map.of(
+            "getID", args -> id,
+            "getName", args -> name,
+            "getEventDescriptionManager", args -> eventManager
+        ));
+    }
+
+    /**
+     * An unemployed citizen of a colony
+     */
+    public static ICitizenData citizen(IColony colony, int id, String name) {
+        ICitizenHappinessHandler happiness = of(ICitizenHappinessHandler.class, Map.of(
+            "getHappiness", args -> 7.25
+        ));
+        return of(ICitizenData.class, Map.of(
+            "getId", args -> id,
+            "getName", args -> name,
+            "getColony", args -> colony,
+            "getCitizenHappinessHandler", args -> happiness,
+            "getSaturation", args -> 15.5
+        ));
+    }
+
+    /**
+     * A colony with a number of citizens, indexed by ID like MineColonies' citizen manager
+     */
+    public static IColony colonyWithCitizens(int id, ResourceKey<Level> dimension, int citizenCount) {
+        Map<Integer, ICitizenData> citizens = new HashMap<>();
+        List<ICitizenData> citizenList = new ArrayList<>(citizenCount);
+        ICitizenManager citizenManager = of(ICitizenManager.class, Map.of(
+            "getCivilian", args -> citizens.get((Integer) args[0]),
+            "getCitizens", args -> citizenList
+        ));
+        IColony colony = of(IColony.class, Map.of(
+            "getID", args -> id,
+            "getName", args -> "Colony " + id,
+            "getDimension", args -> dimension,
+            "getCitizenManager", args -> citizenManager
+        ));
+
+        for (int citizenId = 1; citizenId <= citizenCount; citizenId++) {
+            ICitizenData citizen = citizen(colony, citizenId, "Citizen " + citizenId);
+            citizens.put(citizenId, citizen);
+            citizenList.add(citizen);
+        }
+        return colony;
+    }
+
+    /**
+     * A colony manager over the given colonies, indexed by dimension and ID like the real one
+     */
+    public static IColonyManager colonyManager(List<IColony> colonies) {
+        Map<ResourceKey<Level>, Map<Integer, IColony>> byDimension = new HashMap<>();
+        for (IColony colony : colonies) {
+            byDimension.computeIfAbsent(colony.getDimension(), key -> new HashMap<>()).put(colony.getID(), colony);
+        }
+        return of(IColonyManager.class, Map.of(
+            "getAllColonies", args -> colonies,
+            "getColonyByDimension", args -> byDimension.getOrDefault(args[1], Map.of()).get((Integer) args[0])
+        ));
+    }
+
+    private static ICitizenEventDescription citizenEvent(int index) {
+        String eventName = CITIZEN_EVENTS[(index / 2) % CITIZEN_EVENTS.length];
+        return of(ICitizenEventDescription.class, Map.of(
+            "getName", args -> eventName,
+            "getCitizenName", args -> "Citizen " + index
+        ));
+    }
+
+    private static IBuildingEventDescription buildingEvent(int index) {
+        String eventName = BUILDING_EVENTS[(index / 2) % BUILDING_EVENTS.length];
+        String buildingName = BUILDINGS[index % BUILDINGS.length];
+        return of(IBuildingEventDescription.class, Map.of(
+            "getName", args -> eventName,
+            "getBuildingName", args -> buildingName,
+            "getLevel", args -> 1 + index % 5
+        ));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import java.util.Random;
+
+/**
+ * Distribution of simulated provider latency, in milliseconds
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+    /**
+     * @param random Source of randomness (shared, thread-safe)
+     * @return Latency of one response in milliseconds
+     */
+    long sampleMillis(Random random);
+
+    static LatencyModel none() {
+        return random -> 0;
+    }
+
+    static LatencyModel fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyModel uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Log-normal latency, the usual shape of LLM response times (long right tail)
+     * @param medianMillis Median latency
+     * @param sigma Spread; 0.5 gives a p99 of roughly 3x the median
+     */
+    static LatencyModel logNormal(long medianMillis, double sigma) {
+        return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Parse a latency spec: "none", "fixed:MS", "uniform:MIN:MAX" or "lognormal:MEDIAN:SIGMA"
+     */
+    static LatencyModel parse(String spec) {
+        String[] parts = spec.split(":");
+        return switch (parts[0]) {
+            case "none" -> none();
+            case "fixed" -> fixed(Long.parseLong(parts[1]));
+            case "uniform" -> uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            case "lognormal" -> logNormal(Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+            default -> throw new IllegalArgumentException("Unknown latency model: " + spec);
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import com.thereallemon.llmconversations.memory.ConversationMemory;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Heap footprint of citizen memories
+ * Fills memories for many citizens and reports the retained heap per citizen, comparing a plain
+ * list of strings (the previous representation) with {@link ConversationMemory} with and without
+ * compressed old entries.
+ * <p>
+ * Run with {@code ./gradlew memoryFootprint -PbenchArgs="citizens=10000 memories=20"}.
+ * Measured with System.gc() and Runtime, so run it on an otherwise idle JVM; numbers are approximate.
+ */
+public class MemoryFootprintBenchmark {
+    private static final String[] PLAYERS = {"Steve", "Alex", "Notch", "Jeb", "Dinnerbone"};
+    private static final String[] OPENINGS = {
+        "The player asked about", "They talked about", "The player and the citizen discussed",
+        "The conversation was about", "The citizen complained about"
+    };
+    private static final String[] TOPICS = {
+        "the wheat harvest", "the new town hall", "food shortages at the bakery", "raids on the guard tower",
+        "the builder's hut upgrade", "their work and the colony", "missing tools in the warehouse"
+    };
+    private static final String[] ENDINGS = {
+        "and promised to bring %d bread next time.", "and the citizen agreed to help within %d days.",
+        "and mentioned that they were worried about the next %d nights.", "and asked them to gather %d logs."
+    };
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int citizens = Integer.parseInt(options.getOrDefault("citizens", "10000"));
+        int memories = Integer.parseInt(options.getOrDefault("memories", "20"));
+
+        System.out.printf("%d citizens with %d memories each%n", citizens, memories);
+        System.out.printf("%-28s %14s %14s%n", "representation", "total KB", "bytes/citizen");
+
+        // Previous representation: an ArrayList of separate Strings per citizen
+        measure("ArrayList<String>", citizens, () -> {
+            List<List<String>> all = new ArrayList<>(citizens);
+            Random random = new Random(42);
+            for (int c = 0; c < citizens; c++) {
+                List<String> summaries = new ArrayList<>();
+                for (int m = 0; m < memories; m++) {
+                    summaries.add(0, new String(summary(random)));
+                }
+                all.add(summaries);
+            }
+            return all;
+        });
+
+        for (boolean compress : new boolean[]{false, true}) {
+            InMemoryConfig.load(Map.of(
+                "memory.max_history_length", memories,
+                "memory.compress_old_memories", compress));
+
+            measure(compress ? "ConversationMemory (compressed)" : "ConversationMemory", citizens, () -> {
+                List<ConversationMemory> all = new ArrayList<>(citizens);
+                Random random = new Random(42);
+                for (int c = 0; c < citizens; c++) {
+                    ConversationMemory memory = new ConversationMemory();
+                    for (int m = 0; m < memories; m++) {
+                        memory.addSummary(new String(summary(random)));
+                    }
+                    memory.getSummaries(); // Nothing cached on read
+                    all.add(memory);
+                }
+                return all;
+            });
+        }
+    }
+
+    /**
+     * A summary built from stock phrases, like the ones the LLM tends to produce
+     * About one in ten repeats an earlier one word for word (e.g. fallback summaries).
+     */
+    private static String summary(Random random) {
+        if (random.nextInt(10) == 0) {
+            return "Had a brief chat with " + PLAYERS[random.nextInt(PLAYERS.length)] + ".";
+        }
+        return OPENINGS[random.nextInt(OPENINGS.length)] + " " + TOPICS[random.nextInt(TOPICS.length)] + " with "
+            + PLAYERS[random.nextInt(PLAYERS.length)] + " " + String.format(ENDINGS[random.nextInt(ENDINGS.length)], random.nextInt(64));
+    }
+
+    private static void measure(String name, int citizens, Supplier<Object> build) {
+        long before = usedHeap();
+        Object retained = build.get();
+        long after = usedHeap();
+
+        long bytes = after - before;
+        System.out.printf("%-28s %14d %14d%n", name, bytes / 1024, bytes / citizens);
+
+        // Keep the data reachable until measured
+        Reference.reachabilityFence(retained);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
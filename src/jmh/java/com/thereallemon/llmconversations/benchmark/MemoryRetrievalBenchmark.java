@@ -0,0 +1,81 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import com.thereallemon.llmconversations.memory.ConversationMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of picking the memories most relevant to a player's message, which runs on the
+ * server thread for every chat turn once a citizen remembers more than fit in the prompt
+ * Run with {@code ./gradlew jmh -Pjmh.includes=MemoryRetrievalBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryRetrievalBenchmark {
+    private static final String[] TOPICS = {
+        "the wheat harvest", "the new town hall", "food shortages at the bakery", "raids on the guard tower",
+        "the builder's hut upgrade", "missing tools in the warehouse", "a zombie near the farm",
+        "the fisherman's catch", "iron for the blacksmith", "the school and the children", "a wedding by the lake"
+    };
+    private static final String[] QUERIES = {
+        "Did you ever find those missing tools?", "How is the harvest going this year?",
+        "Any more zombies lately?", "What do you think about the wedding?", "hello"
+    };
+
+    @Param({"100", "1000", "5000"})
+    public int memories;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private ConversationMemory memory;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryConfig.load(Map.of(
+            "memory.max_history_length", memories,
+            "memory.compress_old_memories", compressed));
+
+        Random random = new Random(42);
+        memory = new ConversationMemory();
+        for (int i = 0; i < memories; i++) {
+            memory.addSummary("Steve and I talked about " + TOPICS[random.nextInt(TOPICS.length)] + " and "
+                + TOPICS[random.nextInt(TOPICS.length)] + "; he promised to come back in " + random.nextInt(30) + " days.");
+        }
+
+        // Relevance vectors are computed on the first search and kept, like on a running server
+        memory.findRelevant(QUERIES[0], 5);
+    }
+
+    @Benchmark
+    public List<String> findRelevant() {
+        query = (query + 1) % QUERIES.length;
+        return memory.findRelevant(QUERIES[query], 5);
+    }
+
+    @Benchmark
+    public List<String> mostRecent() {
+        return memory.findRelevant(null, 5);
+    }
+}
@@ -0,0 +1,278 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the OpenRouter chat completions API
+ * Speaks {@code POST /api/v1/chat/completions}, both plain JSON and server-sent events, and can
+ * inject the faults the client has to handle: latency, 429 and 500 responses, slowly dripped
+ * bodies and empty replies. Replies are deterministic for a given request.
+ */
+public class MockOpenRouterServer implements AutoCloseable {
+    public static final String COMPLETIONS_PATH = "/api/v1/chat/completions";
+
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Faults faults;
+    private final Random random;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong emptyResponses = new AtomicLong();
+
+    /**
+     * Fault injection settings
+     * @param latency Time before the first byte of each response
+     * @param rateLimitRate Fraction of requests answered with 429
+     * @param serverErrorRate Fraction of requests answered with 500
+     * @param emptyRate Fraction of requests answered with empty content
+     * @param retryAfterSeconds Retry-After sent with 429 responses, 0 for none
+     * @param dripDelayMillis Delay between body chunks (stream events, or 16-byte pieces of a plain body)
+     * @param seed Random seed, so runs are reproducible
+     */
+    public record Faults(LatencyModel latency, double rateLimitRate, double serverErrorRate, double emptyRate,
+                         int retryAfterSeconds, long dripDelayMillis, long seed) {
+
+        public static Faults none() {
+            return new Faults(LatencyModel.none(), 0, 0, 0, 0, 0, 42);
+        }
+    }
+
+    /**
+     * Start a server on a free local port
+     * @param faults Faults to inject
+     */
+    public MockOpenRouterServer(Faults faults) throws IOException {
+        this.faults = faults;
+        this.random = new Random(faults.seed());
+        // Handlers sleep to simulate latency, which is cheap on virtual threads
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.createContext(COMPLETIONS_PATH, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * @return Base URL to configure in the client, e.g. http://127.0.0.1:1234/api/v1
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1";
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public long getServerErrorCount() {
+        return serverErrors.get();
+    }
+
+    public long getEmptyResponseCount() {
+        return emptyResponses.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendJson(exchange, 405, error(405, "Method not allowed"));
+                return;
+            }
+
+            JsonObject request = gson.fromJson(
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+            requests.incrementAndGet();
+
+            sleep(faults.latency().sampleMillis(random));
+
+            double roll = random.nextDouble();
+            if (roll < faults.rateLimitRate()) {
+                rateLimited.incrementAndGet();
+                if (faults.retryAfterSeconds() > 0) {
+                    exchange.getResponseHeaders().add("Retry-After", String.valueOf(faults.retryAfterSeconds()));
+                }
+                sendJson(exchange, 429, error(429, "Rate limit exceeded"));
+                return;
+            }
+            roll -= faults.rateLimitRate();
+            if (roll < faults.serverErrorRate()) {
+                serverErrors.incrementAndGet();
+                sendJson(exchange, 500, error(500, "Internal server error"));
+                return;
+            }
+            roll -= faults.serverErrorRate();
+
+            String reply = "";
+            if (roll < faults.emptyRate()) {
+                emptyResponses.incrementAndGet();
+            } else {
+                reply = replyFor(request);
+            }
+
+            JsonObject usage = new JsonObject();
+            usage.addProperty("prompt_tokens", gson.toJson(request.get("messages")).length() / 4);
+            usage.addProperty("completion_tokens", reply.length() / 4);
+
+            if (request.has("stream") && request.get("stream").getAsBoolean()) {
+                sendStream(exchange, reply, usage);
+            } else {
+                sendJson(exchange, 200, completion(reply, usage));
+            }
+        }
+    }
+
+    /**
+     * Deterministic reply echoing the last user message
+     */
+    private static String replyFor(JsonObject request) {
+        JsonArray messages = request.getAsJsonArray("messages");
+        String userMessage = "";
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            JsonObject message = messages.get(i).getAsJsonObject();
+            JsonElement content = message.get("content");
+            if ("user".equals(message.get("role").getAsString()) && content.isJsonPrimitive()) {
+                userMessage = content.getAsString();
+                break;
+            }
+        }
+        return "Thanks for asking about \"" + userMessage + "\". The colony is doing well and the builders are busy today.";
+    }
+
+    private JsonObject completion(String reply, JsonObject usage) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", reply);
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("message", message);
+        choice.addProperty("finish_reason", "stop");
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("id", "mock-" + requests.get());
+        response.addProperty("object", "chat.completion");
+        response.add("choices", choices);
+        response.add("usage", usage);
+        return response;
+    }
+
+    private static JsonObject error(int code, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject response = new JsonObject();
+        response.add("error", error);
+        return response;
+    }
+
+    /**
+     * Send a plain JSON body, dripped in small pieces when a drip delay is set
+     */
+    private void sendJson(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+
+        if (faults.dripDelayMillis() <= 0) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, 0); // Chunked
+        OutputStream out = exchange.getResponseBody();
+        for (int offset = 0; offset < bytes.length; offset += 16) {
+            out.write(bytes, offset, Math.min(16, bytes.length - offset));
+            out.flush();
+            sleep(faults.dripDelayMillis());
+        }
+    }
+
+    /**
+     * Send the reply as server-sent events, one word per event, with usage in the final event
+     */
+    private void sendStream(HttpExchange exchange, String reply, JsonObject usage) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        // OpenRouter sends keep-alive comments while the model starts up
+        writeEvent(out, ": OPENROUTER PROCESSING\n\n");
+
+        int start = 0;
+        while (start < reply.length()) {
+            int end = reply.indexOf(' ', start);
+            end = end < 0 ? reply.length() : end + 1;
+
+            JsonObject delta = new JsonObject();
+            delta.addProperty("content", reply.substring(start, end));
+            writeEvent(out, "data: " + gson.toJson(chunk(delta, null)) + "\n\n");
+            sleep(faults.dripDelayMillis());
+            start = end;
+        }
+
+        JsonObject last = chunk(new JsonObject(), "stop");
+        last.add("usage", usage);
+        writeEvent(out, "data: " + gson.toJson(last) + "\n\n");
+        writeEvent(out, "data: [DONE]\n\n");
+    }
+
+    private JsonObject chunk(JsonObject delta, String finishReason) {
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("delta", delta);
+        if (finishReason != null) {
+            choice.addProperty("finish_reason", finishReason);
+        }
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject chunk = new JsonObject();
+        chunk.addProperty("id", "mock-" + requests.get());
+        chunk.addProperty("object", "chat.completion.chunk");
+        chunk.add("choices", choices);
+        return chunk;
+    }
+
+    private static void writeEvent(OutputStream out, String event) throws IOException {
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.thereallemon.llmconversations.benchmark;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import com.thereallemon.llmconversations.llm.PromptBuilder;
+import com.thereallemon.llmconversations.llm.SystemPrompt;
+import com.thereallemon.llmconversations.memory.ConversationMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the system prompt, which runs on the server thread for every chat turn
+ * Run with {@code ./gradlew jmh}; the gc profiler reports the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int events;
+
+    @Param({"5", "20"})
+    public int memories;
+
+    private static final UUID STEVE = UUID.nameUUIDFromBytes("Steve".getBytes());
+
+    private ICitizenData citizen;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryConfig.load(Map.of("memory.max_history_length", memories));
+
+        IColony colony = Fakes.colony(1, "Testville", events);
+        citizen = Fakes.citizen(colony, 1, "Alice");
+
+        // Memories are cached per citizen and player, so they are served from memory like on a running server
+        ConversationMemory memory = new ConversationMemory();
+        for (int i = 0; i < memories; i++) {
+            memory.addSummary("Steve asked about the wheat harvest and promised to bring " + i + " bread next time.");
+        }
+        ConversationMemory.save(citizen, STEVE, memory);
+    }
+
+    @Benchmark
+    public String buildSystemPrompt() {
+        return PromptBuilder.buildSystemPromptParts(citizen, STEVE, "Steve", null).full();
+    }
+
+    @Benchmark
+    public SystemPrompt buildSystemPromptParts() {
+        return PromptBuilder.buildSystemPromptParts(citizen, STEVE, "Steve", null);
+    }
+
+    @Benchmark
+    public String buildColonyEventsContext() {
+        return PromptBuilder.buildColonyEventsContext(citizen);
+    }
+}
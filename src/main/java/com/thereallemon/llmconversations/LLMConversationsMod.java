@@ -1,6 +1,9 @@
 package com.thereallemon.llmconversations;
 
 import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.llm.ColonyEventCache;
+import com.thereallemon.llmconversations.llm.PromptBuilder;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
 import com.thereallemon.llmconversations.network.EndConversationPacket;
 import com.thereallemon.llmconversations.network.StartConversationPacket;
 import com.thereallemon.llmconversations.network.SyncConversationStatePacket;
@@ -8,6 +11,7 @@ import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.config.ModConfig;
+import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 import org.apache.logging.log4j.LogManager;
@@ -28,12 +32,24 @@ public class LLMConversationsMod {
             "llm-conversations-client.toml"
         );
 
+        // Rebuild config-derived caches whenever the config is (re)loaded
+        modEventBus.addListener(ModConfigEvent.Loading.class, event -> onConfigLoaded());
+        modEventBus.addListener(ModConfigEvent.Reloading.class, event -> onConfigLoaded());
+
+        // Register metrics up front so every series is exported from the start
+        ModMetrics.init();
+
         // Register network packets
         modEventBus.addListener(this::registerNetworkPackets);
 
         LOGGER.info("LLM Conversations mod initialized successfully");
     }
 
+    private static void onConfigLoaded() {
+        PromptBuilder.reloadTemplate();
+        ColonyEventCache.clear();
+    }
+
     private void registerNetworkPackets(RegisterPayloadHandlersEvent event) {
         PayloadRegistrar registrar = event.registrar("1");
 
@@ -0,0 +1,159 @@
+package com.thereallemon.llmconversations.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.thereallemon.llmconversations.llm.RequestScheduler;
+import com.thereallemon.llmconversations.llm.RequestType;
+import com.thereallemon.llmconversations.llm.ResponseCache;
+import com.thereallemon.llmconversations.memory.MemoryCache;
+import com.thereallemon.llmconversations.metrics.LatencyHistogram;
+import com.thereallemon.llmconversations.metrics.MetricsHttpServer;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
+import com.thereallemon.llmconversations.state.ConversationStateManager;
+import com.thereallemon.llmconversations.usage.UsageTracker;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.players.GameProfileCache;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Operator commands under /llm
+ * /llm status prints a live summary of the metrics.
+ * /llm usage [by model|type|player|colony|citizen] shows token usage and cost, /llm usage reset clears it.
+ */
+public class LLMCommand {
+    // Groups shown per listing; the rest are summarized in one line
+    private static final int MAX_ROWS = 10;
+
+    /**
+     * Register the commands
+     * @param dispatcher The server's command dispatcher
+     */
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        LiteralArgumentBuilder<CommandSourceStack> by = Commands.literal("by");
+        for (UsageTracker.Grouping grouping : UsageTracker.Grouping.values()) {
+            by.then(Commands.literal(grouping.name().toLowerCase(Locale.ROOT))
+                .executes(context -> showUsage(context.getSource(), grouping)));
+        }
+
+        dispatcher.register(Commands.literal("llm")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("status")
+                .executes(context -> showStatus(context.getSource())))
+            .then(Commands.literal("usage")
+                .executes(context -> showUsage(context.getSource(), UsageTracker.Grouping.MODEL))
+                .then(by)
+                .then(Commands.literal("reset")
+                    .executes(context -> resetUsage(context.getSource())))));
+    }
+
+    private static int showStatus(CommandSourceStack source) {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        int interactive = scheduler.getQueueDepth(true);
+        int queued = interactive + scheduler.getQueueDepth(false);
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.status.requests",
+            scheduler.getInFlight(), queued, interactive, scheduler.getSubmittedCount(),
+            ModMetrics.RETRIES.get(), ModMetrics.FAILURES.get()), false);
+
+        LatencyHistogram chat = ModMetrics.requestDuration(RequestType.CHAT);
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.status.latency",
+            millis(chat.getPercentileMillis(50)), millis(chat.getPercentileMillis(95)),
+            millis(chat.getPercentileMillis(99)), chat.getCount(),
+            millis(ModMetrics.QUEUE_WAIT.getPercentileMillis(99))), false);
+
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.status.conversations",
+            ConversationStateManager.getSessions().size()), false);
+
+        MemoryCache memoryCache = MemoryCache.getInstance();
+        ResponseCache responseCache = ResponseCache.getInstance();
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.status.caches",
+            memoryCache.size(), hitRate(memoryCache.getHits(), memoryCache.getMisses()),
+            responseCache.size(), hitRate(responseCache.getHits(), responseCache.getMisses())), false);
+
+        serverThreadRow(source, "tick", ModMetrics.SERVER_TICK);
+        serverThreadRow(source, "chat", ModMetrics.SERVER_CHAT);
+        serverThreadRow(source, "response", ModMetrics.SERVER_RESPONSE);
+        serverThreadRow(source, "summary", ModMetrics.SERVER_SUMMARY);
+
+        String endpoint = MetricsHttpServer.getAddress();
+        source.sendSuccess(() -> endpoint != null ?
+            Component.translatable("llmconversations.command.status.endpoint", endpoint) :
+            Component.translatable("llmconversations.command.status.endpoint_disabled"), false);
+        return 1;
+    }
+
+    private static void serverThreadRow(CommandSourceStack source, String task, LatencyHistogram histogram) {
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.status.server_thread",
+            task, histogram.getCount(), millis(histogram.getAverageMillis()),
+            millis(histogram.getPercentileMillis(99)), millis(histogram.getMaxMillis())), false);
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.ROOT, value < 10 ? "%.2f" : "%.0f", value);
+    }
+
+    private static long hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : hits * 100 / total;
+    }
+
+    private static int showUsage(CommandSourceStack source, UsageTracker.Grouping grouping) {
+        UsageTracker tracker = UsageTracker.getInstance();
+        UsageTracker.Total overall = tracker.overall();
+        if (overall.getRequests() == 0) {
+            source.sendSuccess(() -> Component.translatable("llmconversations.command.usage.none"), false);
+            return 0;
+        }
+
+        source.sendSuccess(() -> usageRow("llmconversations.command.usage.total", overall.getLabel(), overall), false);
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.usage.header",
+            grouping.name().toLowerCase(Locale.ROOT)), false);
+
+        List<UsageTracker.Total> totals = tracker.totals(grouping);
+        for (UsageTracker.Total total : totals.subList(0, Math.min(MAX_ROWS, totals.size()))) {
+            String label = grouping == UsageTracker.Grouping.PLAYER ? playerName(source, total.getLabel()) : total.getLabel();
+            source.sendSuccess(() -> usageRow("llmconversations.command.usage.row", label, total), false);
+        }
+        if (totals.size() > MAX_ROWS) {
+            source.sendSuccess(() -> Component.translatable("llmconversations.command.usage.more",
+                totals.size() - MAX_ROWS), false);
+        }
+        return totals.size();
+    }
+
+    private static int resetUsage(CommandSourceStack source) {
+        UsageTracker.getInstance().clear();
+        source.sendSuccess(() -> Component.translatable("llmconversations.command.usage.reset"), true);
+        return 1;
+    }
+
+    private static Component usageRow(String key, String label, UsageTracker.Total total) {
+        return Component.translatable(key,
+            label,
+            total.getRequests(),
+            total.getPromptTokens(),
+            total.getCachedTokens(),
+            total.getCompletionTokens(),
+            total.getReasoningTokens(),
+            String.format(Locale.ROOT, "%.4f", total.getCost()));
+    }
+
+    /**
+     * Name of a player from the server's profile cache, or the UUID if unknown
+     */
+    private static String playerName(CommandSourceStack source, String label) {
+        GameProfileCache profiles = source.getServer().getProfileCache();
+        if (profiles == null) {
+            return label;
+        }
+        try {
+            return profiles.get(UUID.fromString(label)).map(profile -> profile.getName()).orElse(label);
+        } catch (IllegalArgumentException e) {
+            return label; // "system"
+        }
+    }
+}
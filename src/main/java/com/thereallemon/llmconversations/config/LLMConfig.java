@@ -19,11 +19,42 @@ public class LLMConfig {
         public final ModConfigSpec.BooleanValue enableIdleConversations;
         public final ModConfigSpec.DoubleValue idleConversationChance;
         public final ModConfigSpec.IntValue maxConversationHistoryLength;
+        public final ModConfigSpec.IntValue memoriesInPrompt;
+        public final ModConfigSpec.IntValue publicMemoryLength;
+        public final ModConfigSpec.IntValue maxPlayersPerCitizen;
+        public final ModConfigSpec.IntValue historyTokenBudget;
+        public final ModConfigSpec.BooleanValue historyRecap;
+        public final ModConfigSpec.IntValue rollingSummaryInterval;
+        public final ModConfigSpec.IntValue journalCompactionKb;
+        public final ModConfigSpec.BooleanValue compressOldMemories;
+        public final ModConfigSpec.IntValue memoryCacheMaxEntries;
+        public final ModConfigSpec.IntValue memoryCacheIdleMinutes;
         public final ModConfigSpec.IntValue maxTokens;
         public final ModConfigSpec.DoubleValue temperature;
+        public final ModConfigSpec.BooleanValue streamResponses;
+        public final ModConfigSpec.BooleanValue promptCacheLayout;
         public final ModConfigSpec.BooleanValue debugMode;
+        public final ModConfigSpec.IntValue metricsPort;
+        public final ModConfigSpec.ConfigValue<String> metricsBindAddress;
         public final ModConfigSpec.ConfigValue<String> exitWords;
         public final ModConfigSpec.DoubleValue maxConversationDistance;
+        public final ModConfigSpec.ConfigValue<String> defaultProvider;
+        public final ModConfigSpec.ConfigValue<String> modelRoutes;
+        public final ModConfigSpec.ConfigValue<String> openaiCompatibleBaseUrl;
+        public final ModConfigSpec.ConfigValue<String> openaiCompatibleApiKey;
+        public final ModConfigSpec.IntValue connectionPoolSize;
+        public final ModConfigSpec.IntValue keepAliveSeconds;
+        public final ModConfigSpec.IntValue requestTimeoutSeconds;
+        public final ModConfigSpec.IntValue maxConcurrentRequests;
+        public final ModConfigSpec.IntValue maxRetries;
+        public final ModConfigSpec.IntValue retryBaseDelayMillis;
+        public final ModConfigSpec.IntValue retryMaxDelayMillis;
+        public final ModConfigSpec.IntValue circuitBreakerThreshold;
+        public final ModConfigSpec.IntValue circuitBreakerOpenSeconds;
+        public final ModConfigSpec.BooleanValue responseCacheEnabled;
+        public final ModConfigSpec.IntValue responseCacheMaxEntries;
+        public final ModConfigSpec.IntValue responseCacheTtlSeconds;
+        public final ModConfigSpec.DoubleValue responseCacheMaxTemperature;
 
         public ClientConfig(ModConfigSpec.Builder builder) {
             builder.comment("LLM Conversations Configuration")
@@ -70,6 +101,130 @@ public class LLMConfig {
                 .translation("llmconversations.config.temperature")
                 .defineInRange("temperature", 0.7, 0.0, 2.0);
             
+            streamResponses = builder
+                .comment("Stream responses token by token so players see the reply while it is generated")
+                .translation("llmconversations.config.stream_responses")
+                .define("stream_responses", true);
+            
+            promptCacheLayout = builder
+                .comment("Lay out prompts so providers can cache them between turns",
+                         "Sentences using {happiness} or {saturation} and recent events are sent separately",
+                         "from the rest of the system prompt, which then stays identical across turns")
+                .translation("llmconversations.config.prompt_cache_layout")
+                .define("prompt_cache_layout", true);
+            
+            builder.pop();
+            
+            builder.comment("LLM Provider Settings")
+                   .push("providers");
+            
+            defaultProvider = builder
+                .comment("Provider used for models without a route: openrouter, openai_compatible or mock",
+                         "mock answers in-process without network access, for offline testing")
+                .translation("llmconversations.config.default_provider")
+                .define("default_provider", "openrouter");
+            
+            modelRoutes = builder
+                .comment("Route specific models to a provider (comma-separated model=provider pairs)",
+                         "Example: llama3.1:8b=openai_compatible, anthropic/claude-3-haiku=openrouter")
+                .translation("llmconversations.config.model_routes")
+                .define("model_routes", "");
+            
+            openaiCompatibleBaseUrl = builder
+                .comment("Base URL of an OpenAI-compatible server such as llama.cpp or Ollama (without /chat/completions)")
+                .translation("llmconversations.config.openai_compatible_base_url")
+                .define("openai_compatible_base_url", "http://localhost:11434/v1");
+            
+            openaiCompatibleApiKey = builder
+                .comment("API key for the OpenAI-compatible server, if it needs one")
+                .translation("llmconversations.config.openai_compatible_api_key")
+                .define("openai_compatible_api_key", "");
+            
+            builder.pop();
+            
+            builder.comment("Network Settings")
+                   .push("network");
+            
+            connectionPoolSize = builder
+                .comment("Maximum number of idle connections kept open to the LLM provider (requires restart)")
+                .translation("llmconversations.config.connection_pool_size")
+                .defineInRange("connection_pool_size", 8, 1, 64);
+            
+            keepAliveSeconds = builder
+                .comment("How long an idle connection is kept open for reuse, in seconds (requires restart)")
+                .translation("llmconversations.config.keep_alive_seconds")
+                .defineInRange("keep_alive_seconds", 300, 10, 1800);
+            
+            requestTimeoutSeconds = builder
+                .comment("Timeout for a single LLM request, in seconds (requires restart)")
+                .translation("llmconversations.config.request_timeout_seconds")
+                .defineInRange("request_timeout_seconds", 60, 5, 300);
+            
+            maxConcurrentRequests = builder
+                .comment("Maximum number of LLM requests in flight at once across all players",
+                         "Further requests are queued; chat replies always go ahead of summaries")
+                .translation("llmconversations.config.max_concurrent_requests")
+                .defineInRange("max_concurrent_requests", 8, 1, 64);
+            
+            builder.pop();
+            
+            builder.comment("Resilience Settings")
+                   .push("resilience");
+            
+            maxRetries = builder
+                .comment("Maximum retries for a failed request",
+                         "Only rate limits, server errors, timeouts and empty replies are retried")
+                .translation("llmconversations.config.max_retries")
+                .defineInRange("max_retries", 3, 0, 10);
+            
+            retryBaseDelayMillis = builder
+                .comment("Base delay for exponential backoff between retries, in milliseconds")
+                .translation("llmconversations.config.retry_base_delay_ms")
+                .defineInRange("retry_base_delay_ms", 500, 50, 10000);
+            
+            retryMaxDelayMillis = builder
+                .comment("Maximum delay between retries, in milliseconds",
+                         "If the provider asks us to wait longer (Retry-After), the request fails instead")
+                .translation("llmconversations.config.retry_max_delay_ms")
+                .defineInRange("retry_max_delay_ms", 8000, 500, 120000);
+            
+            circuitBreakerThreshold = builder
+                .comment("Consecutive provider failures before requests to a model fail fast",
+                         "Set to 0 to disable the circuit breaker")
+                .translation("llmconversations.config.circuit_breaker_threshold")
+                .defineInRange("circuit_breaker_threshold", 5, 0, 100);
+            
+            circuitBreakerOpenSeconds = builder
+                .comment("Seconds to fail fast before sending a probe request to the model again")
+                .translation("llmconversations.config.circuit_breaker_open_seconds")
+                .defineInRange("circuit_breaker_open_seconds", 30, 1, 3600);
+            
+            builder.pop();
+            
+            builder.comment("Response Cache Settings")
+                   .push("response_cache");
+            
+            responseCacheEnabled = builder
+                .comment("Answer identical requests from memory instead of calling the API again")
+                .translation("llmconversations.config.response_cache_enabled")
+                .define("response_cache_enabled", true);
+            
+            responseCacheMaxEntries = builder
+                .comment("Maximum number of cached responses (least recently used are evicted first)")
+                .translation("llmconversations.config.response_cache_max_entries")
+                .defineInRange("response_cache_max_entries", 256, 0, 10000);
+            
+            responseCacheTtlSeconds = builder
+                .comment("How long a cached response stays valid, in seconds")
+                .translation("llmconversations.config.response_cache_ttl_seconds")
+                .defineInRange("response_cache_ttl_seconds", 300, 1, 86400);
+            
+            responseCacheMaxTemperature = builder
+                .comment("Responses are only cached when temperature is at or below this value",
+                         "Higher temperatures are meant to give varied answers")
+                .translation("llmconversations.config.response_cache_max_temperature")
+                .defineInRange("response_cache_max_temperature", 1.0, 0.0, 2.0);
+            
             builder.pop();
             
             builder.comment("Idle Conversation Settings (not working yet)")
@@ -91,9 +246,66 @@ public class LLMConfig {
                    .push("memory");
             
             maxConversationHistoryLength = builder
-                .comment("Maximum number of past conversation summaries to remember")
+                .comment("Maximum number of past conversation summaries a citizen remembers of each player")
                 .translation("llmconversations.config.max_history_length")
-                .defineInRange("max_history_length", 5, 0, 20);
+                .defineInRange("max_history_length", 50, 0, 5000);
+            
+            memoriesInPrompt = builder
+                .comment("Number of memories (and recent colony events) included in each prompt",
+                         "When a citizen remembers more, the ones most relevant to the player's message are picked")
+                .translation("llmconversations.config.memories_in_prompt")
+                .defineInRange("memories_in_prompt", 5, 1, 50);
+            
+            publicMemoryLength = builder
+                .comment("Number of conversations a citizen remembers publicly, whoever they were with (0 to disable)",
+                         "Other players see these, so citizens can mention who else they talked to")
+                .translation("llmconversations.config.public_memory_length")
+                .defineInRange("public_memory_length", 3, 0, 20);
+            
+            maxPlayersPerCitizen = builder
+                .comment("Number of players a citizen keeps memories of; the player talked to least recently is forgotten first")
+                .translation("llmconversations.config.max_players_per_citizen")
+                .defineInRange("max_players_per_citizen", 50, 1, 1000);
+            
+            historyTokenBudget = builder
+                .comment("Approximate token budget for the messages of the current conversation sent with each turn",
+                         "Older messages are dropped once a conversation exceeds it. Set to 0 for no limit")
+                .translation("llmconversations.config.history_token_budget")
+                .defineInRange("history_token_budget", 2000, 0, 100000);
+            
+            historyRecap = builder
+                .comment("Replace dropped messages with a short recap so the citizen doesn't lose the thread")
+                .translation("llmconversations.config.history_recap")
+                .define("history_recap", true);
+            
+            rollingSummaryInterval = builder
+                .comment("Fold older turns into a running summary in the background every this many turns",
+                         "Keeps requests small during long conversations and leaves less to summarize at the end. Set to 0 to disable")
+                .translation("llmconversations.config.rolling_summary_interval")
+                .defineInRange("rolling_summary_interval", 6, 0, 50);
+            
+            journalCompactionKb = builder
+                .comment("New memories are appended to a small journal per colony instead of rewriting all memories",
+                         "Once a colony's journal grows past this size (KB) it is folded into the colony's memory file on the next world save")
+                .translation("llmconversations.config.journal_compaction_kb")
+                .defineInRange("journal_compaction_kb", 64, 1, 16384);
+            
+            compressOldMemories = builder
+                .comment("Keep all but the 3 most recent memories of each citizen compressed in RAM",
+                         "Saves memory on servers with many citizens at a small CPU cost when building prompts")
+                .translation("llmconversations.config.compress_old_memories")
+                .define("compress_old_memories", false);
+            
+            memoryCacheMaxEntries = builder
+                .comment("Maximum number of citizens whose memories are kept decoded in RAM",
+                         "Least recently used memories beyond this are kept only in their compact saved form")
+                .translation("llmconversations.config.memory_cache_max_entries")
+                .defineInRange("memory_cache_max_entries", 256, 0, 100000);
+            
+            memoryCacheIdleMinutes = builder
+                .comment("Minutes a citizen's memory stays decoded in RAM after it was last used")
+                .translation("llmconversations.config.memory_cache_idle_minutes")
+                .defineInRange("memory_cache_idle_minutes", 30, 1, 1440);
             
             builder.pop();
             
@@ -114,6 +326,22 @@ public class LLMConfig {
 
             builder.pop();
             
+            builder.comment("Metrics Settings")
+                   .push("metrics");
+            
+            metricsPort = builder
+                .comment("Port of an HTTP endpoint serving metrics at /metrics in Prometheus text format",
+                         "Set to 0 to disable (requires restart)")
+                .translation("llmconversations.config.metrics_port")
+                .defineInRange("metrics_port", 0, 0, 65535);
+            
+            metricsBindAddress = builder
+                .comment("Address the metrics endpoint listens on; keep 127.0.0.1 unless your scraper runs elsewhere (requires restart)")
+                .translation("llmconversations.config.metrics_bind_address")
+                .define("metrics_bind_address", "127.0.0.1");
+            
+            builder.pop();
+            
             builder.comment("Debug Settings")
                    .push("debug");
             
@@ -1,9 +1,11 @@
 package com.thereallemon.llmconversations.events;
 
 import com.minecolonies.api.colony.ICitizenData;
-import com.minecolonies.api.colony.IColonyManager;
 import com.thereallemon.llmconversations.config.LLMConfig;
 import com.thereallemon.llmconversations.interaction.LLMConversationHandler;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
+import com.thereallemon.llmconversations.state.CitizenRef;
+import com.thereallemon.llmconversations.state.ConversationSession;
 import com.thereallemon.llmconversations.state.ConversationStateManager;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
@@ -11,7 +13,6 @@ import net.neoforged.neoforge.event.ServerChatEvent;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 
-import java.util.UUID;
 import java.util.Arrays;
 
 /**
@@ -23,22 +24,33 @@ public class ChatInterceptHandler {
     @SubscribeEvent
     public static void onPlayerChat(ServerChatEvent event) {
         ServerPlayer player = event.getPlayer();
-        UUID playerUUID = player.getUUID();
         
         // Check if player is in a conversation
-        Integer citizenId = ConversationStateManager.getConversationPartner(playerUUID);
-        if (citizenId == null) {
+        ConversationSession session = ConversationStateManager.getSession(player.getUUID());
+        if (session == null) {
             return; // Not in conversation, let chat proceed normally
         }
         
         // Cancel normal chat - this message is for the citizen
         event.setCanceled(true);
-        
+
+        long start = System.nanoTime();
+        try {
+            handleConversationMessage(event, player, session);
+        } finally {
+            ModMetrics.SERVER_CHAT.recordSince(start);
+        }
+    }
+
+    /**
+     * Handle a chat message sent during a conversation
+     */
+    private static void handleConversationMessage(ServerChatEvent event, ServerPlayer player, ConversationSession session) {
         // Get citizen data
-        ICitizenData citizenData = findCitizen(player, citizenId);
+        ICitizenData citizenData = session.resolveCitizen();
         if (citizenData == null) {
             // Citizen no longer exists, end conversation
-            ConversationStateManager.endConversation(citizenId);
+            ConversationStateManager.endConversation(session);
             player.sendSystemMessage(Component.translatable(
                 "llmconversations.message.citizen_left"
             ));
@@ -49,29 +61,19 @@ public class ChatInterceptHandler {
         
         // Check for exit commands (configurable list)
         if (isExitWord(message)) {
-            endConversation(player, citizenData);
+            endConversation(player, session.getHandler(), citizenData);
             return;
         }
         
-        // Forward to LLM handler
-        LLMConversationHandler handler = ConversationStateManager.getHandler(citizenId);
-        if (handler != null) {
-            // Echo the player's message in chat with proper color formatting
-            player.sendSystemMessage(
-                Component.literal(player.getName().getString())
-                    .withStyle(style -> style.withColor(net.minecraft.ChatFormatting.GREEN))
-                    .append(Component.literal(": " + message).withColor(net.minecraft.ChatFormatting.WHITE.getColor()))
-            );
+        // Echo the player's message in chat with proper color formatting
+        player.sendSystemMessage(
+            Component.literal(player.getName().getString())
+                .withStyle(style -> style.withColor(net.minecraft.ChatFormatting.GREEN))
+                .append(Component.literal(": " + message).withColor(net.minecraft.ChatFormatting.WHITE.getColor()))
+        );
 
-            // Process the message
-            handler.handlePlayerMessage(message, player);
-        } else {
-            // Handler not found, end conversation
-            ConversationStateManager.endConversation(citizenId);
-            player.sendSystemMessage(Component.translatable(
-                "llmconversations.message.handler_lost"
-            ));
-        }
+        // Forward to LLM handler
+        session.getHandler().handlePlayerMessage(message, player);
     }
     
     /**
@@ -83,31 +85,16 @@ public class ChatInterceptHandler {
         return Arrays.asList(exitWords).contains(lowerMessage);
     }
     
-    /**
-     * Find a citizen by ID across all colonies
-     */
-    private static ICitizenData findCitizen(ServerPlayer player, int citizenId) {
-        return IColonyManager.getInstance()
-            .getAllColonies()
-            .stream()
-            .flatMap(colony -> colony.getCitizenManager().getCitizens().stream())
-            .filter(citizen -> citizen.getId() == citizenId)
-            .findFirst()
-            .orElse(null);
-    }
-    
     /**
      * End a conversation properly and ensure citizen resumes work
      */
-    private static void endConversation(ServerPlayer player, ICitizenData citizenData) {
-        LLMConversationHandler handler = ConversationStateManager.getHandler(citizenData.getId());
+    private static void endConversation(ServerPlayer player, LLMConversationHandler handler, ICitizenData citizenData) {
         if (handler != null) {
             // Use the handler's proper end method (includes LLM summarization)
             handler.endConversation(player);
         } else {
             // Fallback if handler is missing - still need to clean up properly
-            ConversationStateManager.unfreezeStats(citizenData);
-            ConversationStateManager.endConversation(citizenData.getId());
+            ConversationStateManager.endConversation(CitizenRef.of(citizenData));
             
             // Resume work
             if (citizenData.getJob() != null) {
@@ -0,0 +1,51 @@
+package com.thereallemon.llmconversations.events;
+
+import com.thereallemon.llmconversations.command.LLMCommand;
+import com.thereallemon.llmconversations.memory.MemoryCache;
+import com.thereallemon.llmconversations.memory.MemoryJournal;
+import com.thereallemon.llmconversations.memory.MemorySavedData;
+import com.thereallemon.llmconversations.metrics.MetricsHttpServer;
+import com.thereallemon.llmconversations.usage.UsageSavedData;
+import com.thereallemon.llmconversations.usage.UsageTracker;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+
+/**
+ * Server start and stop hooks, and command registration
+ */
+@EventBusSubscriber(modid = "llmconversations")
+public class ServerLifecycleHandler {
+
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        // Colonies are loaded by now, so old citizen-ID-only memories can be assigned to them
+        MemorySavedData.migrate(event.getServer());
+
+        // Continue counting token usage where this world left off
+        UsageSavedData.attach(event.getServer());
+
+        MetricsHttpServer.start();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        MetricsHttpServer.stop();
+
+        // The writer thread is a daemon, so make sure queued memory changes reach disk
+        MemoryJournal.awaitWrites();
+
+        // Memories belong to this world; don't let the next one (single-player) see them
+        MemoryCache.getInstance().clear();
+
+        // Already saved with the world; counts of the next world start from its own data
+        UsageTracker.getInstance().detach();
+    }
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        LLMCommand.register(event.getDispatcher());
+    }
+}
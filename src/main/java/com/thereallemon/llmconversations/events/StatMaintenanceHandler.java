@@ -1,36 +1,43 @@
 package com.thereallemon.llmconversations.events;
 
-import com.minecolonies.api.colony.IColonyManager;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
+import com.thereallemon.llmconversations.state.ConversationSession;
 import com.thereallemon.llmconversations.state.ConversationStateManager;
+import net.minecraft.server.MinecraftServer;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 
 /**
- * Maintains frozen stats for citizens in conversations
+ * Maintains citizens in conversations: keeps them facing their player and holds their stats
+ * Only active sessions are visited, so the cost scales with conversations, not colony size.
  */
 @EventBusSubscriber(modid = "llmconversations")
 public class StatMaintenanceHandler {
     
     private static int tickCounter = 0;
-    private static final int CHECK_INTERVAL = 20; // Once per second
+    private static final int CHECK_INTERVAL = 20; // Stats are restored once per second
     
     @SubscribeEvent
     public static void onServerTick(ServerTickEvent.Post event) {
         // In NeoForge 1.21+, ServerTickEvent is split into Pre and Post
         // We use Post which is equivalent to the old Phase.END
         
-        tickCounter++;
-        if (tickCounter < CHECK_INTERVAL) {
+        boolean restoreStats = ++tickCounter >= CHECK_INTERVAL;
+        if (restoreStats) {
+            tickCounter = 0;
+        }
+
+        if (ConversationStateManager.getSessions().isEmpty()) {
             return;
         }
-        tickCounter = 0;
-        
-        // Maintain frozen stats for all citizens in conversations
-        IColonyManager.getInstance().getAllColonies().forEach(colony -> {
-            colony.getCitizenManager().getCitizens().forEach(citizen -> {
-                ConversationStateManager.maintainFrozenStats(citizen);
-            });
-        });
+
+        // Look and distance are updated every tick, frozen stats once per interval
+        long start = System.nanoTime();
+        MinecraftServer server = event.getServer();
+        for (ConversationSession session : ConversationStateManager.getSessions()) {
+            ConversationStateManager.maintainSession(session, server, restoreStats);
+        }
+        ModMetrics.SERVER_TICK.recordSince(start);
     }
 }
@@ -7,10 +7,18 @@ import com.minecolonies.api.colony.ICitizenDataView;
 import com.minecolonies.api.colony.interactionhandling.AbstractInteractionResponseHandler;
 import com.minecolonies.api.colony.interactionhandling.ChatPriority;
 import com.minecolonies.api.colony.interactionhandling.IInteractionResponseHandler;
-import com.thereallemon.llmconversations.llm.OpenRouterClient;
+import com.thereallemon.llmconversations.llm.ChatMessage;
+import com.thereallemon.llmconversations.llm.HistoryWindow;
+import com.thereallemon.llmconversations.llm.LLMClient;
 import com.thereallemon.llmconversations.llm.PromptBuilder;
+import com.thereallemon.llmconversations.llm.RequestContext;
+import com.thereallemon.llmconversations.llm.RequestType;
+import com.thereallemon.llmconversations.llm.SystemPrompt;
 import com.thereallemon.llmconversations.memory.ConversationMemory;
+import com.thereallemon.llmconversations.metrics.LatencyHistogram;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
 import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.state.CitizenRef;
 import com.thereallemon.llmconversations.state.ConversationStateManager;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import net.minecraft.core.HolderLookup;
@@ -23,6 +31,8 @@ import org.jetbrains.annotations.NotNull;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Handles LLM-powered conversations with Minecolonies citizens
@@ -30,13 +40,28 @@ import java.util.UUID;
 public class LLMConversationHandler extends AbstractInteractionResponseHandler {
     
     private static final String TYPE_ID = "llmconversations:llm_chat";
+    private static final int STREAM_PREVIEW_LENGTH = 80;
+    // Minimum ticks between syncs of a streaming reply to the client's speech bubble
+    private static final int STREAM_SYNC_INTERVAL_TICKS = 10;
+    // Newest messages never folded into the rolling summary, so the citizen sees recent turns verbatim
+    private static final int ROLLING_SUMMARY_KEEP_MESSAGES = 4;
     
     private final ICitizenData citizenData;
-    private final OpenRouterClient llmClient;
-    private List<OpenRouterClient.ChatMessage> conversationHistory;
+    private final LLMClient llmClient;
+    private List<ChatMessage> conversationHistory;
     private String currentResponse = "";
     private UUID conversationId;
     private boolean isWaitingForResponse = false;
+
+    // Partial reply while a streamed response is arriving, null otherwise (synced to the client's bubble)
+    private String streamingResponse = null;
+    private final AtomicReference<String> pendingPartial = new AtomicReference<>();
+    private long lastStreamSyncTick = -STREAM_SYNC_INTERVAL_TICKS;
+
+    // Summary of conversationHistory[0, summarizedUpTo), updated in the background during long conversations
+    private String runningSummary = "";
+    private int summarizedUpTo = 0;
+    private boolean isRollingSummaryRunning = false;
     
     /**
      * Constructor for new conversation
@@ -49,7 +74,7 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         );
         
         this.citizenData = citizenData;
-        this.llmClient = new OpenRouterClient();
+        this.llmClient = LLMClient.getInstance();
         this.conversationHistory = new ArrayList<>();
         this.conversationId = UUID.randomUUID();
         
@@ -63,7 +88,7 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
     public LLMConversationHandler(ICitizen citizen) {
         super();
         this.citizenData = (ICitizenData) citizen;
-        this.llmClient = new OpenRouterClient();
+        this.llmClient = LLMClient.getInstance();
         this.conversationHistory = new ArrayList<>();
     }
     
@@ -107,6 +132,9 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
 
     @Override
     public Component getInquiry() {
+        if (streamingResponse != null) {
+            return Component.literal(streamingResponse);
+        }
         if (isWaitingForResponse) {
             return Component.translatable("llmconversations.message.thinking");
         }
@@ -121,7 +149,7 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
     
     @Override
     public boolean isVisible(Level world) {
-        return !isWaitingForResponse;
+        return !isWaitingForResponse || streamingResponse != null;
     }
     
     /**
@@ -141,14 +169,14 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         
         isWaitingForResponse = true;
         conversationHistory.add(
-            new OpenRouterClient.ChatMessage("user", message)
+            new ChatMessage("user", message)
         );
         
         DebugLogger.debug("Added message to history. Total messages: {}", conversationHistory.size());
         
-        // Check API key
-        String apiKey = LLMConfig.CLIENT.apiKey.get();
-        if (apiKey.isEmpty()) {
+        // Check the model's provider is set up (API key, base URL)
+        String model = LLMConfig.CLIENT.model.get();
+        if (!llmClient.isConfigured(model)) {
             DebugLogger.error("No API key configured!");
             player.sendSystemMessage(
                 Component.translatable("llmconversations.message.no_api_key")
@@ -158,23 +186,48 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         }
         
         // Build system prompt with citizen context
-        String systemPrompt = PromptBuilder.buildSystemPrompt(citizenData, player);
-        String model = LLMConfig.CLIENT.model.get();
+        SystemPrompt systemPrompt = PromptBuilder.buildSystemPromptParts(citizenData, player, message);
         DebugLogger.debug("Using model: {}", model);
         
+        // Summarized turns are replaced by the running summary; send as much of the rest as fits the budget
+        List<ChatMessage> window = HistoryWindow.fit(
+            conversationHistory.subList(summarizedUpTo, conversationHistory.size()),
+            LLMConfig.CLIENT.historyTokenBudget.get(),
+            runningSummary,
+            LLMConfig.CLIENT.historyRecap.get()
+        );
+        DebugLogger.debug("Sending {} of {} history messages", window.size(), conversationHistory.size());
+        
         // Make async LLM call - message is already in conversationHistory, so we pass history only
-        llmClient.sendChatRequest(
-            apiKey,
-            model,
-            systemPrompt,
-            conversationHistory
-        ).thenAccept(response -> {
+        CompletableFuture<String> request;
+        if (LLMConfig.CLIENT.streamResponses.get()) {
+            request = llmClient.sendChatRequestStreaming(
+                model,
+                systemPrompt,
+                window,
+                partial -> onPartialResponse(partial, player),
+                RequestContext.of(RequestType.CHAT, player, citizenData)
+            );
+        } else {
+            request = llmClient.sendChatRequest(
+                model,
+                systemPrompt,
+                window,
+                RequestContext.of(RequestType.CHAT, player, citizenData)
+            );
+        }
+
+        request.thenAccept(response -> {
             // Update on server thread
             if (citizenData.getColony() != null && citizenData.getColony().getWorld() != null) {
-                citizenData.getColony().getWorld().getServer().execute(() -> {
+                runOnServerThread(ModMetrics.SERVER_RESPONSE, () -> {
+                    if (streamingResponse != null) {
+                        citizenData.markDirty(0); // Replace the partial reply in the bubble
+                    }
+                    streamingResponse = null;
                     currentResponse = response;
                     conversationHistory.add(
-                        new OpenRouterClient.ChatMessage("assistant", response)
+                        new ChatMessage("assistant", response)
                     );
                     isWaitingForResponse = false;
                     
@@ -187,12 +240,18 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
                     
                     // Mark colony dirty to save changes
                     citizenData.getColony().markDirty();
+
+                    maybeStartRollingSummary(player);
                 });
             }
         }).exceptionally(throwable -> {
             // Handle error on server thread
             if (citizenData.getColony() != null && citizenData.getColony().getWorld() != null) {
-                citizenData.getColony().getWorld().getServer().execute(() -> {
+                runOnServerThread(ModMetrics.SERVER_RESPONSE, () -> {
+                    if (streamingResponse != null) {
+                        citizenData.markDirty(0);
+                    }
+                    streamingResponse = null;
                     isWaitingForResponse = false;
                     player.sendSystemMessage(
                         Component.translatable("llmconversations.message.error_talking",
@@ -204,6 +263,121 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         });
     }
 
+    /**
+     * Run a task on the server thread, counting the time it takes
+     */
+    private void runOnServerThread(LatencyHistogram timer, Runnable task) {
+        citizenData.getColony().getWorld().getServer().execute(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                timer.recordSince(start);
+            }
+        });
+    }
+
+    /**
+     * Receive partial text from a streamed response (called on a network thread)
+     * Updates are coalesced so the server thread handles at most one pending update at a time.
+     */
+    private void onPartialResponse(String partial, Player player) {
+        if (citizenData.getColony() == null || citizenData.getColony().getWorld() == null) {
+            return;
+        }
+        if (pendingPartial.getAndSet(partial) != null) {
+            return; // An update is already queued and will pick up the newest text
+        }
+
+        runOnServerThread(ModMetrics.SERVER_RESPONSE, () -> {
+            String latest = pendingPartial.getAndSet(null);
+            if (latest == null || !isWaitingForResponse) {
+                return; // Final response already arrived
+            }
+
+            streamingResponse = latest;
+
+            // Sync the citizen so the speech bubble follows along, throttled as each sync resends the handler
+            long now = citizenData.getColony().getWorld().getGameTime();
+            if (now - lastStreamSyncTick >= STREAM_SYNC_INTERVAL_TICKS) {
+                lastStreamSyncTick = now;
+                citizenData.markDirty(0);
+            }
+
+            // Show the reply as it is generated above the hotbar; the full message goes to chat at the end
+            String preview = latest.length() > STREAM_PREVIEW_LENGTH ?
+                "..." + latest.substring(latest.length() - STREAM_PREVIEW_LENGTH) : latest;
+            player.displayClientMessage(
+                Component.literal(citizenData.getName())
+                    .withStyle(style -> style.withColor(net.minecraft.ChatFormatting.AQUA))
+                    .append(Component.literal(": " + preview).withColor(net.minecraft.ChatFormatting.WHITE.getColor())),
+                true
+            );
+        });
+    }
+
+    /**
+     * Fold older turns into the running summary once enough have built up (call on the server thread)
+     * Runs as low-priority background work; the newest turns are always left out so they stay verbatim.
+     */
+    private void maybeStartRollingSummary(Player player) {
+        int interval = LLMConfig.CLIENT.rollingSummaryInterval.get();
+        if (interval <= 0 || isRollingSummaryRunning) {
+            return;
+        }
+
+        int foldEnd = conversationHistory.size() - ROLLING_SUMMARY_KEEP_MESSAGES;
+        if (foldEnd - summarizedUpTo < interval * 2) {
+            return; // Fewer than interval turns (player message + reply) since the last fold
+        }
+
+        String model = LLMConfig.CLIENT.model.get();
+        if (!llmClient.isConfigured(model)) {
+            return;
+        }
+
+        String previousSummary = runningSummary;
+        String turns = formatTranscript(conversationHistory.subList(summarizedUpTo, foldEnd));
+        UUID foldConversationId = conversationId;
+
+        StringBuilder prompt = new StringBuilder("Update the running summary of this ongoing conversation. ");
+        prompt.append("Keep every request, promise and important fact, in at most four sentences.\n\n");
+        if (!previousSummary.isEmpty()) {
+            prompt.append("Summary so far: ").append(previousSummary).append("\n\n");
+        }
+        prompt.append("New messages:\n").append(turns);
+
+        DebugLogger.debug("Folding messages {}-{} of conversation with {} into running summary",
+            summarizedUpTo, foldEnd, citizenData.getName());
+        isRollingSummaryRunning = true;
+
+        llmClient.sendChatRequest(
+            model,
+            buildSummarySystemPrompt(),
+            new ArrayList<>(),
+            prompt.toString(),
+            RequestContext.of(RequestType.ROLLING_SUMMARY, player, citizenData)
+        ).whenComplete((summary, throwable) -> {
+            if (citizenData.getColony() == null || citizenData.getColony().getWorld() == null) {
+                return; // Colony unloaded, the handler is gone with it (the flag is only touched on the server thread)
+            }
+            runOnServerThread(ModMetrics.SERVER_SUMMARY, () -> {
+                isRollingSummaryRunning = false;
+                if (throwable != null) {
+                    DebugLogger.debug("Rolling summary failed, will retry on a later turn: {}", throwable.getMessage());
+                    return;
+                }
+                if (!foldConversationId.equals(conversationId) || foldEnd > conversationHistory.size()) {
+                    return; // Conversation was replaced while the summary was running
+                }
+                runningSummary = summary.trim();
+                summarizedUpTo = foldEnd;
+                citizenData.getColony().markDirty();
+                DebugLogger.debug("Running summary updated: {}", runningSummary);
+            });
+        });
+    }
+
     /**
      * End the conversation and save summary using LLM
      */
@@ -226,8 +400,8 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
             DebugLogger.debug("No conversation messages to summarize (only system messages or empty)");
         }
         
-        // Unfreeze stats FIRST (before resuming work)
-        ConversationStateManager.unfreezeStats(citizenData);
+        // Clear conversation state FIRST so stats unfreeze before resuming work
+        ConversationStateManager.endConversation(CitizenRef.of(citizenData));
         
         // Resume citizen's work and AI
         if (citizenData.getJob() != null) {
@@ -239,9 +413,6 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
             citizenData.getJob().resetAI();
         }
         
-        // Clear conversation state
-        ConversationStateManager.endConversation(citizenData.getId());
-        
         // Notify player
         player.sendSystemMessage(
             Component.translatable("llmconversations.message.conversation_ended",
@@ -264,6 +435,11 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
      * Fallback method if LLM summarization fails
      */
     private String summarizeConversation() {
+        // The running summary already covers most of a long conversation
+        if (!runningSummary.isEmpty()) {
+            return runningSummary;
+        }
+
         // Simple version: just count topics
         StringBuilder summary = new StringBuilder();
         summary.append("Talked about: ");
@@ -292,21 +468,24 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
             return;
         }
         
-        // Build conversation text
-        StringBuilder conversationText = new StringBuilder();
-        for (OpenRouterClient.ChatMessage msg : conversationHistory) {
-            if ("user".equals(msg.role) || "assistant".equals(msg.role)) {
-                conversationText.append(msg.role).append(": ").append(msg.content).append("\n");
-            }
+        // Only the turns not yet folded into the running summary need to be sent
+        String conversationText = formatTranscript(
+            conversationHistory.subList(Math.min(summarizedUpTo, conversationHistory.size()), conversationHistory.size()));
+        if (conversationText.isEmpty() && !runningSummary.isEmpty()) {
+            DebugLogger.log("Conversation fully covered by running summary - saving it directly");
+            saveSummary(player, runningSummary);
+            return;
+        }
+        if (!runningSummary.isEmpty()) {
+            conversationText = "Earlier in the conversation: " + runningSummary + "\n" + conversationText;
         }
         
-        DebugLogger.log("Conversation to summarize (" + conversationHistory.size() + " messages):");
-        DebugLogger.log(conversationText.toString());
+        DebugLogger.log("Conversation to summarize (" + (conversationHistory.size() - summarizedUpTo) + " new messages):");
+        DebugLogger.log(conversationText);
 
-        String apiKey = LLMConfig.CLIENT.apiKey.get();
         String model = LLMConfig.CLIENT.model.get();
         
-        if (apiKey.isEmpty()) {
+        if (!llmClient.isConfigured(model)) {
             DebugLogger.error("Cannot summarize - API key is empty!");
             return;
         }
@@ -314,41 +493,31 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         // Create summarization prompt optimized for memory retention
         String summaryPrompt = "Summarize the key points and topics from this conversation in one concise sentence (10-20 words). " +
                              "Focus on what the player asked about, any requests made, and important information shared:\n\n" + 
-                             conversationText.toString();
+                             conversationText;
         
         // System prompt for summarization
-        String summarySystemPrompt = "You are a memory assistant for " + citizenData.getName() + 
-                                   ", a " + (citizenData.getJob() != null ? citizenData.getJob().getJobRegistryEntry().getTranslationKey() : "citizen") + 
-                                   ". Create brief, factual summaries that help remember key conversation points. " +
-                                   "Focus on: requests made, information shared, topics discussed, and any commitments.";
+        String summarySystemPrompt = buildSummarySystemPrompt();
         
         DebugLogger.log("Summary System Prompt: " + summarySystemPrompt);
         DebugLogger.log("Sending summarization request to LLM (model: " + model + ")...");
 
         // Make async LLM call for summary
         llmClient.sendChatRequest(
-            apiKey,
             model,
             summarySystemPrompt,
             new ArrayList<>(), // No history needed for summary
-            summaryPrompt
+            summaryPrompt,
+            RequestContext.of(RequestType.SUMMARY, player, citizenData)
         ).thenAccept(summary -> {
             DebugLogger.log("=== LLM RESPONSE RECEIVED ===");
             DebugLogger.log("Summary: " + summary.trim());
 
             if (citizenData.getColony() != null && citizenData.getColony().getWorld() != null) {
-                citizenData.getColony().getWorld().getServer().execute(() -> {
+                runOnServerThread(ModMetrics.SERVER_SUMMARY, () -> {
                     DebugLogger.log("Executing on server thread - saving summary");
 
                     // Save the LLM-generated summary
-                    ConversationMemory memory = ConversationMemory.get(citizenData);
-                    if (memory != null) {
-                        memory.addSummary(summary.trim());
-                        ConversationMemory.save(citizenData, memory);
-                        DebugLogger.log("✓ Summary successfully saved to memory!");
-                    } else {
-                        DebugLogger.error("Failed to save summary - memory object is null!");
-                    }
+                    saveSummary(player, summary.trim());
                     DebugLogger.debugSeparator();
                 });
             } else {
@@ -361,17 +530,11 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
             
             // If summarization fails, fall back to simple summary
             if (citizenData.getColony() != null && citizenData.getColony().getWorld() != null) {
-                citizenData.getColony().getWorld().getServer().execute(() -> {
+                runOnServerThread(ModMetrics.SERVER_SUMMARY, () -> {
                     DebugLogger.log("Using fallback summarization method");
-                    ConversationMemory memory = ConversationMemory.get(citizenData);
-                    if (memory != null) {
-                        String fallbackSummary = summarizeConversation();
-                        memory.addSummary(fallbackSummary);
-                        ConversationMemory.save(citizenData, memory);
-                        DebugLogger.log("Fallback summary saved: " + fallbackSummary);
-                    } else {
-                        DebugLogger.error("Failed to save fallback summary - memory object is null!");
-                    }
+                    String fallbackSummary = summarizeConversation();
+                    saveSummary(player, fallbackSummary);
+                    DebugLogger.log("Fallback summary saved: " + fallbackSummary);
                     DebugLogger.debugSeparator();
                 });
             } else {
@@ -382,6 +545,37 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
 
         DebugLogger.log("Summarization request sent - waiting for async response");
     }
+
+    /**
+     * Add a summary to the citizen's memory of the player (call on the server thread)
+     */
+    private void saveSummary(Player player, String summary) {
+        ConversationMemory.remember(citizenData, player.getUUID(), player.getName().getString(), summary);
+        DebugLogger.log("✓ Summary successfully saved to memory!");
+    }
+
+    /**
+     * System prompt shared by the final and rolling summaries
+     */
+    private String buildSummarySystemPrompt() {
+        return "You are a memory assistant for " + citizenData.getName() + 
+               ", a " + (citizenData.getJob() != null ? citizenData.getJob().getJobRegistryEntry().getTranslationKey() : "citizen") + 
+               ". Create brief, factual summaries that help remember key conversation points. " +
+               "Focus on: requests made, information shared, topics discussed, and any commitments.";
+    }
+
+    /**
+     * Format player and citizen messages as "role: content" lines
+     */
+    private static String formatTranscript(List<ChatMessage> messages) {
+        StringBuilder text = new StringBuilder();
+        for (ChatMessage msg : messages) {
+            if ("user".equals(msg.role) || "assistant".equals(msg.role)) {
+                text.append(msg.role).append(": ").append(msg.content).append("\n");
+            }
+        }
+        return text.toString();
+    }
     
     @Override
     public @NotNull CompoundTag serializeNBT(HolderLookup.@NotNull Provider provider) {
@@ -389,11 +583,14 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         nbt.putString("currentResponse", currentResponse);
         nbt.putUUID("conversationId", conversationId);
         nbt.putBoolean("isWaiting", isWaitingForResponse);
+        if (streamingResponse != null) {
+            nbt.putString("streamingResponse", streamingResponse);
+        }
 
         // Save conversation history
         CompoundTag historyTag = new CompoundTag();
         for (int i = 0; i < conversationHistory.size(); i++) {
-            OpenRouterClient.ChatMessage msg = conversationHistory.get(i);
+            ChatMessage msg = conversationHistory.get(i);
             CompoundTag msgTag = new CompoundTag();
             msgTag.putString("role", msg.role);
             msgTag.putString("content", msg.content);
@@ -401,6 +598,8 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         }
         nbt.put("history", historyTag);
         nbt.putInt("historySize", conversationHistory.size());
+        nbt.putString("runningSummary", runningSummary);
+        nbt.putInt("summarizedUpTo", summarizedUpTo);
         
         return nbt;
     }
@@ -411,6 +610,7 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
         currentResponse = nbt.getString("currentResponse");
         conversationId = nbt.getUUID("conversationId");
         isWaitingForResponse = nbt.getBoolean("isWaiting");
+        streamingResponse = nbt.contains("streamingResponse") ? nbt.getString("streamingResponse") : null;
 
         // Load conversation history
         conversationHistory.clear();
@@ -421,13 +621,15 @@ public class LLMConversationHandler extends AbstractInteractionResponseHandler {
                 String key = "msg_" + i;
                 if (historyTag.contains(key)) {
                     CompoundTag msgTag = historyTag.getCompound(key);
-                    conversationHistory.add(new OpenRouterClient.ChatMessage(
+                    conversationHistory.add(new ChatMessage(
                         msgTag.getString("role"),
                         msgTag.getString("content")
                     ));
                 }
             }
         }
+        runningSummary = nbt.getString("runningSummary");
+        summarizedUpTo = Math.min(nbt.getInt("summarizedUpTo"), conversationHistory.size());
     }
 }
 
@@ -0,0 +1,25 @@
+package com.thereallemon.llmconversations.llm;
+
+/**
+ * Represents a chat message in the conversation
+ */
+public class ChatMessage {
+    public final String role; // "system", "user" or "assistant"
+    public final String content;
+    private int tokenEstimate = -1;
+    
+    public ChatMessage(String role, String content) {
+        this.role = role;
+        this.content = content;
+    }
+    
+    /**
+     * Estimated tokens this message adds to a request, computed once
+     */
+    public int getTokenEstimate() {
+        if (tokenEstimate < 0) {
+            tokenEstimate = TokenEstimator.estimate(content) + TokenEstimator.MESSAGE_OVERHEAD;
+        }
+        return tokenEstimate;
+    }
+}
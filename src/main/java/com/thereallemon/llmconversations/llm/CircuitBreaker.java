@@ -0,0 +1,106 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-model circuit breaker.
+ * After too many consecutive provider failures the circuit opens and requests fail fast.
+ * Once the open period has passed, a single probe request is let through (half-open):
+ * success closes the circuit, failure opens it again.
+ */
+public class CircuitBreaker {
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String model;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean probeInFlight = false;
+
+    private CircuitBreaker(String model) {
+        this.model = model;
+    }
+
+    /**
+     * Get the breaker for a model
+     * @param model Model identifier
+     * @return The model's breaker
+     */
+    public static CircuitBreaker forModel(String model) {
+        return BREAKERS.computeIfAbsent(model, CircuitBreaker::new);
+    }
+
+    /**
+     * Ask permission to send a request
+     * @return True if the request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        if (LLMConfig.CLIENT.circuitBreakerThreshold.get() <= 0) {
+            return true; // Disabled
+        }
+
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                DebugLogger.log("Circuit for model " + model + " half-open, sending probe request");
+                return true;
+            case HALF_OPEN:
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Record a successful request
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            DebugLogger.log("Circuit for model " + model + " closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Record a failed request that reflects on the provider's health
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        int threshold = LLMConfig.CLIENT.circuitBreakerThreshold.get();
+
+        if (state == State.HALF_OPEN || (threshold > 0 && consecutiveFailures >= threshold)) {
+            state = State.OPEN;
+            probeInFlight = false;
+            openUntil = System.currentTimeMillis() + LLMConfig.CLIENT.circuitBreakerOpenSeconds.get() * 1000L;
+            DebugLogger.error("Circuit for model " + model + " opened after " + consecutiveFailures + " failures");
+        }
+    }
+
+    /**
+     * Release a probe slot without judging the provider (e.g. the request was a client error)
+     */
+    public synchronized void onNeutral() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,105 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.colonyEvents.descriptions.IColonyEventDescription;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-colony cache of the formatted recent events block of the system prompt
+ * Colony events are append-mostly, so each event is formatted once and the block is only
+ * rebuilt when the most recent events change. Colonies are weakly referenced, so entries of
+ * unloaded colonies are dropped with them.
+ */
+public class ColonyEventCache {
+    private static final Map<IColony, Entry> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Formatted block for the events that were the most recent when it was built
+     */
+    private record Entry(IColonyEventDescription[] events, String[] lines, int maxEvents, String block) {
+    }
+
+    /**
+     * Get the events block for a colony, formatting only events not seen before
+     * @param colony The colony
+     * @param events The colony's event descriptions, oldest first
+     * @param maxEvents Number of most recent events to include
+     * @param formatter Formats a single event as a line (including the newline)
+     * @return The formatted block, or an empty string if there are no events
+     */
+    public static String get(IColony colony, List<IColonyEventDescription> events, int maxEvents,
+                             Function<IColonyEventDescription, String> formatter) {
+        int count = Math.min(maxEvents, events.size());
+        if (count <= 0) {
+            return "";
+        }
+
+        IColonyEventDescription[] recent = new IColonyEventDescription[count];
+        ListIterator<IColonyEventDescription> iterator = events.listIterator(events.size() - count);
+        for (int i = 0; i < count; i++) {
+            recent[i] = iterator.next();
+        }
+
+        Entry cached = CACHE.get(colony);
+        if (cached != null && cached.maxEvents == maxEvents && sameEvents(cached.events, recent)) {
+            return cached.block;
+        }
+
+        // Reuse lines of events that were already formatted; usually all but the newest
+        String[] lines = new String[count];
+        StringBuilder block = new StringBuilder("\n\nRecent colony events you're aware of:\n");
+        for (int i = 0; i < count; i++) {
+            String line = cached != null ? findLine(cached, recent[i], i) : null;
+            lines[i] = line != null ? line : formatter.apply(recent[i]);
+            block.append(lines[i]);
+        }
+        block.append("\nYou can naturally mention these events in conversation, only if relevant.");
+
+        Entry entry = new Entry(recent, lines, maxEvents, block.toString());
+        CACHE.put(colony, entry);
+        return entry.block;
+    }
+
+    /**
+     * Drop all cached blocks, e.g. after a config change
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static boolean sameEvents(IColonyEventDescription[] cached, IColonyEventDescription[] recent) {
+        if (cached.length != recent.length) {
+            return false;
+        }
+        for (int i = 0; i < recent.length; i++) {
+            if (cached[i] != recent[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the formatted line of an event in a cached entry
+     * When new events were appended, the event sits a few places further along than it does now.
+     */
+    private static String findLine(Entry cached, IColonyEventDescription event, int position) {
+        for (int i = Math.min(position, cached.events.length - 1); i < cached.events.length; i++) {
+            if (cached.events[i] == event) {
+                return cached.lines[i];
+            }
+        }
+        for (int i = Math.min(position, cached.events.length) - 1; i >= 0; i--) {
+            if (cached.events[i] == event) {
+                return cached.lines[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.thereallemon.llmconversations.llm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects the part of a conversation history that fits in a token budget.
+ * The newest messages are kept; older ones are dropped and replaced by a single recap
+ * message. This keeps request size roughly constant no matter how long the player talks.
+ */
+public class HistoryWindow {
+    private static final int RECAP_LINE_LENGTH = 80;
+
+    /**
+     * Fit a history into a token budget
+     * @param history The conversation history to fit, oldest first
+     * @param budgetTokens Token budget for the history, 0 or less for no limit
+     * @param priorSummary Summary of turns that came before {@code history}, or null.
+     *                     Always included when present.
+     * @param includeRecap Whether to add a short recap of messages dropped for the budget
+     * @return The messages to send (the original list if everything fits and there's no summary)
+     */
+    public static List<ChatMessage> fit(
+            List<ChatMessage> history,
+            int budgetTokens,
+            String priorSummary,
+            boolean includeRecap) {
+
+        boolean hasSummary = priorSummary != null && !priorSummary.isEmpty();
+        if ((budgetTokens <= 0 || history.isEmpty()) && !hasSummary) {
+            return history;
+        }
+        if (budgetTokens <= 0) {
+            budgetTokens = Integer.MAX_VALUE;
+        }
+
+        // Walk back from the newest message until the budget is used up; always keep the latest
+        int used = 0;
+        int start = history.size();
+        while (start > 0) {
+            int cost = history.get(start - 1).getTokenEstimate();
+            if (used + cost > budgetTokens && start < history.size()) {
+                break;
+            }
+            used += cost;
+            start--;
+        }
+
+        if (start == 0 && !hasSummary) {
+            return history;
+        }
+
+        // Start the window on a player message so turns stay paired
+        while (start < history.size() - 1 && !"user".equals(history.get(start).role)) {
+            start++;
+        }
+
+        List<ChatMessage> window = new ArrayList<>(history.size() - start + 1);
+        String recapText = hasSummary ? priorSummary : "";
+        if (includeRecap && start > 0) {
+            String droppedRecap = buildRecap(history, start, Math.max(32, Math.min(budgetTokens, 2000) / 5));
+            if (!droppedRecap.isEmpty()) {
+                recapText = recapText.isEmpty() ? droppedRecap : recapText + " Later, " + droppedRecap;
+            }
+        }
+        if (!recapText.isEmpty()) {
+            window.add(new ChatMessage("system",
+                "Earlier in this conversation: " + recapText));
+        }
+        window.addAll(history.subList(start, history.size()));
+        return window;
+    }
+
+    /**
+     * Build a short recap from the player's dropped messages, newest kept first when space runs out
+     */
+    private static String buildRecap(List<ChatMessage> history, int droppedCount, int budgetTokens) {
+        List<String> lines = new ArrayList<>();
+        int used = 0;
+        for (int i = droppedCount - 1; i >= 0; i--) {
+            ChatMessage msg = history.get(i);
+            if (!"user".equals(msg.role)) {
+                continue;
+            }
+            String line = msg.content.length() > RECAP_LINE_LENGTH ?
+                msg.content.substring(0, RECAP_LINE_LENGTH) + "..." : msg.content;
+            int cost = TokenEstimator.estimate(line) + 2;
+            if (used + cost > budgetTokens) {
+                break;
+            }
+            used += cost;
+            lines.add(0, "\"" + line + "\"");
+        }
+
+        return lines.isEmpty() ? "" : "the player also said " + String.join("; ", lines) + ".";
+    }
+}
@@ -0,0 +1,89 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide HTTP transport shared by every LLM request.
+ * Owns the single OkHttpClient (connection pool, dispatcher and threads) so that
+ * conversation handlers borrow it instead of each creating their own.
+ */
+public class HttpTransport {
+    private static volatile OkHttpClient client;
+
+    // Timer used to schedule retries and other delayed work without blocking a thread
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LLMConversations-Timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Get the shared client, creating it from the config on first use.
+     * Pool settings are read once; changes take effect after a restart.
+     * @return The shared OkHttpClient
+     */
+    public static OkHttpClient client() {
+        OkHttpClient result = client;
+        if (result == null) {
+            synchronized (HttpTransport.class) {
+                result = client;
+                if (result == null) {
+                    result = createClient();
+                    client = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run a task after a delay on the shared timer thread.
+     * The task should be short; it is meant to enqueue work, not to do it.
+     * @param task The task to run
+     * @param delayMillis Delay in milliseconds
+     */
+    public static void schedule(Runnable task, long delayMillis) {
+        TIMER.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Build the client from config values
+     */
+    private static OkHttpClient createClient() {
+        int poolSize = LLMConfig.CLIENT.connectionPoolSize.get();
+        int keepAliveSeconds = LLMConfig.CLIENT.keepAliveSeconds.get();
+        int timeoutSeconds = LLMConfig.CLIENT.requestTimeoutSeconds.get();
+
+        // Let our own request limits decide concurrency, not OkHttp's per-host default of 5
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(64);
+        dispatcher.setMaxRequestsPerHost(64);
+
+        DebugLogger.debug("Creating shared HTTP transport (pool: {}, keep-alive: {}s, timeout: {}s)",
+            poolSize, keepAliveSeconds, timeoutSeconds);
+
+        // HTTP/2 is negotiated via ALPN and multiplexes all requests to a host over one connection.
+        // Response gzip is handled transparently by OkHttp (Accept-Encoding is added automatically).
+        return new OkHttpClient.Builder()
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectionPool(new ConnectionPool(poolSize, keepAliveSeconds, TimeUnit.SECONDS))
+            .dispatcher(dispatcher)
+            .pingInterval(30, TimeUnit.SECONDS)
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+            .writeTimeout(timeoutSeconds, TimeUnit.SECONDS)
+            .callTimeout(timeoutSeconds, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .build();
+    }
+}
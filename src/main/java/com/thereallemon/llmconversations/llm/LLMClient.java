@@ -0,0 +1,297 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.llm.provider.LLMProvider;
+import com.thereallemon.llmconversations.llm.provider.ProviderRegistry;
+import com.thereallemon.llmconversations.llm.provider.ProviderResponse;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
+import com.thereallemon.llmconversations.usage.UsageTracker;
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.List;
+
+/**
+ * Client for making async LLM requests
+ * Each model is routed to an {@link LLMProvider} (see {@link ProviderRegistry}); this class adds
+ * scheduling, response caching, retries and the circuit breaker on top. A single instance is
+ * shared by all handlers.
+ */
+public class LLMClient {
+    private static final LLMClient INSTANCE = new LLMClient();
+    
+    private final Gson gson;
+    
+    private LLMClient() {
+        this.gson = new Gson();
+    }
+
+    /**
+     * Get the shared client instance
+     * @return The shared LLMClient
+     */
+    public static LLMClient getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Whether the provider a model is routed to can send requests (e.g. has an API key)
+     * @param model Model identifier
+     * @return True if requests for the model can be sent
+     */
+    public boolean isConfigured(String model) {
+        return ProviderRegistry.forModel(model).isConfigured();
+    }
+    
+    /**
+     * Send a chat request asynchronously with conversation history (no separate user message)
+     * @param model Model identifier
+     * @param systemPrompt System prompt for the conversation
+     * @param conversationHistory Messages including the latest user message
+     * @param context Who the request is for, used for scheduling
+     * @return CompletableFuture with the assistant's response
+     */
+    public CompletableFuture<String> sendChatRequest(
+            String model,
+            SystemPrompt systemPrompt,
+            List<ChatMessage> conversationHistory,
+            RequestContext context) {
+
+        return sendChatRequestWithRetry(model, systemPrompt, conversationHistory, null, null, context);
+    }
+
+    /**
+     * Send a chat request with streaming enabled (server-sent events)
+     * Partial text is reported as tokens arrive; the future completes with the full response.
+     * Providers that can't stream report the whole response once it arrives.
+     * @param model Model identifier
+     * @param systemPrompt System prompt for the conversation
+     * @param conversationHistory Messages including the latest user message
+     * @param onPartial Called on a network thread with the full text received so far
+     * @param context Who the request is for, used for scheduling
+     * @return CompletableFuture with the assistant's complete response
+     */
+    public CompletableFuture<String> sendChatRequestStreaming(
+            String model,
+            SystemPrompt systemPrompt,
+            List<ChatMessage> conversationHistory,
+            Consumer<String> onPartial,
+            RequestContext context) {
+
+        return sendChatRequestWithRetry(model, systemPrompt, conversationHistory, null, onPartial, context);
+    }
+
+    /**
+     * Send a chat request asynchronously (legacy method with separate user message)
+     * @param model Model identifier
+     * @param systemPrompt System prompt for the conversation
+     * @param conversationHistory Previous messages in the conversation
+     * @param userMessage Current user message
+     * @param context Who the request is for, used for scheduling
+     * @return CompletableFuture with the assistant's response
+     */
+    public CompletableFuture<String> sendChatRequest(
+            String model,
+            String systemPrompt,
+            List<ChatMessage> conversationHistory,
+            String userMessage,
+            RequestContext context) {
+        
+        return sendChatRequestWithRetry(model, SystemPrompt.of(systemPrompt), conversationHistory, userMessage, null, context);
+    }
+
+    /**
+     * Internal method with retry logic (see {@link RetryPolicy} and {@link CircuitBreaker})
+     * The request body is built once on the calling thread, so later changes to the
+     * history list don't affect in-flight requests. All attempts complete the same future,
+     * which holds one slot in the {@link RequestScheduler} until it finishes.
+     */
+    private CompletableFuture<String> sendChatRequestWithRetry(
+            String model,
+            SystemPrompt systemPrompt,
+            List<ChatMessage> conversationHistory,
+            String userMessage,
+            Consumer<String> onPartial,
+            RequestContext context) {
+
+        try {
+            LLMProvider provider = ProviderRegistry.forModel(model);
+
+            DebugLogger.debugSection("LLM API Request");
+            DebugLogger.debug("Model: {} (provider: {})", model, provider.getId());
+            DebugLogger.debug("System Prompt: {}", systemPrompt.full());
+            if (userMessage != null) {
+                DebugLogger.debug("User Message: {}", userMessage);
+            }
+            DebugLogger.debug("Conversation History Length: {}", conversationHistory.size());
+
+            JsonObject requestBody = provider.buildRequestBody(
+                model, systemPrompt, conversationHistory, userMessage
+            );
+
+            // Identical requests can be answered from the cache without a round-trip
+            ResponseCache cache = ResponseCache.getInstance();
+            String cacheKey = cache.isCacheable() ? ResponseCache.keyFor(provider.getId() + "\n" + gson.toJson(requestBody)) : null;
+            if (cacheKey != null) {
+                String cached = cache.get(cacheKey);
+                if (cached != null) {
+                    DebugLogger.debug("Response cache hit ({} hits, {} misses)", cache.getHits(), cache.getMisses());
+                    if (onPartial != null) {
+                        onPartial.accept(cached);
+                    }
+                    return CompletableFuture.completedFuture(cached);
+                }
+            }
+
+            PendingRequest pending = new PendingRequest(provider, requestBody, model, cacheKey, onPartial, context);
+            long submittedAt = System.nanoTime();
+            CompletableFuture<String> result = RequestScheduler.getInstance().submit(context, () -> {
+                executeAttempt(pending, 0);
+                return pending.result;
+            });
+            result.whenComplete((response, throwable) -> ModMetrics.requestDuration(context.type()).recordSince(submittedAt));
+            return result;
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Start a single attempt of the request without blocking the calling thread
+     */
+    private void executeAttempt(PendingRequest pending, int attemptNumber) {
+        if (pending.result.isDone()) {
+            return; // Cancelled by the caller
+        }
+
+        CircuitBreaker breaker = CircuitBreaker.forModel(pending.model);
+        if (!breaker.tryAcquire()) {
+            ModMetrics.CIRCUIT_REJECTIONS.increment();
+            ModMetrics.FAILURES.increment();
+            pending.result.completeExceptionally(new LLMRequestException(
+                "Model " + pending.model + " is temporarily unavailable (circuit open)", -1, false, -1));
+            return;
+        }
+
+        if (attemptNumber > 0) {
+            DebugLogger.log("Retry attempt " + attemptNumber + " of " + LLMConfig.CLIENT.maxRetries.get());
+        }
+
+        // Without streaming support the whole response is reported once it arrives
+        boolean stream = pending.onPartial != null && pending.provider.getCapabilities().streaming();
+        Consumer<String> onDelta = stream ? partial -> {
+            pending.streamedText.set(true);
+            pending.onPartial.accept(partial);
+        } : null;
+
+        long attemptStart = System.nanoTime();
+        CompletableFuture<ProviderResponse> attempt;
+        try {
+            attempt = pending.provider.send(pending.body, onDelta);
+        } catch (Exception e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+
+        attempt.whenComplete((parsed, throwable) -> {
+            ModMetrics.ATTEMPT_DURATION.recordSince(attemptStart);
+            try {
+                if (throwable != null) {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                        throwable.getCause() : throwable;
+                    throw cause instanceof Exception exception ? exception : new IOException(cause);
+                }
+                PromptCacheStats.record(parsed.usage());
+                UsageTracker.getInstance().record(pending.context, pending.model, parsed.usage());
+                String parsedResponse = parsed.content();
+
+                // Check if response is empty - retry if so
+                if (parsedResponse == null || parsedResponse.trim().isEmpty()) {
+                    DebugLogger.error("Received empty response from LLM");
+                    throw new IOException("Empty response from LLM");
+                }
+
+                DebugLogger.debug("Parsed Response: {}", parsedResponse);
+                DebugLogger.debugSeparator();
+
+                breaker.onSuccess();
+                if (pending.cacheKey != null) {
+                    ResponseCache.getInstance().put(pending.cacheKey, parsedResponse);
+                }
+                if (pending.onPartial != null && !stream) {
+                    pending.onPartial.accept(parsedResponse);
+                }
+                pending.result.complete(parsedResponse);
+            } catch (Exception e) {
+                handleFailure(pending, attemptNumber, e);
+            }
+        });
+    }
+
+    /**
+     * Schedule the next attempt on the transport's timer, or fail the request if the error
+     * isn't retryable or retries run out
+     */
+    private void handleFailure(PendingRequest pending, int attemptNumber, Exception e) {
+        CircuitBreaker breaker = CircuitBreaker.forModel(pending.model);
+        if (RetryPolicy.countsAsProviderFailure(e)) {
+            breaker.onFailure();
+        } else {
+            breaker.onNeutral();
+        }
+
+        DebugLogger.error("Request failed (attempt " + (attemptNumber + 1) + "): " + e.getMessage());
+
+        // A stream that already showed text to the player can't be retried without duplicating it
+        boolean canRetry = RetryPolicy.isRetryable(e)
+            && attemptNumber < LLMConfig.CLIENT.maxRetries.get()
+            && !pending.streamedText.get();
+
+        long delayMillis = -1;
+        if (canRetry) {
+            long retryAfter = e instanceof LLMRequestException requestException ? requestException.getRetryAfterMillis() : -1;
+            delayMillis = RetryPolicy.backoffMillis(attemptNumber, retryAfter);
+        }
+
+        if (delayMillis >= 0) {
+            DebugLogger.log("Retrying request in " + delayMillis + "ms...");
+            ModMetrics.RETRIES.increment();
+
+            // Back off before retrying without holding a thread while waiting
+            HttpTransport.schedule(() -> executeAttempt(pending, attemptNumber + 1), delayMillis);
+        } else {
+            ModMetrics.FAILURES.increment();
+            pending.result.completeExceptionally(new RuntimeException("Failed to get LLM response after " + (attemptNumber + 1) +
+                                                                      " attempts: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * State shared by all attempts of one logical request
+     */
+    private static class PendingRequest {
+        final LLMProvider provider;
+        final JsonObject body;
+        final String model;
+        final String cacheKey; // null when the response shouldn't be cached
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final Consumer<String> onPartial; // null when not streaming
+        final AtomicBoolean streamedText = new AtomicBoolean(false);
+        final RequestContext context;
+
+        PendingRequest(LLMProvider provider, JsonObject body, String model, String cacheKey,
+                       Consumer<String> onPartial, RequestContext context) {
+            this.provider = provider;
+            this.body = body;
+            this.model = model;
+            this.cacheKey = cacheKey;
+            this.onPartial = onPartial;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.thereallemon.llmconversations.llm;
+
+import java.io.IOException;
+
+/**
+ * A failed LLM request, classified so the retry policy knows whether trying again can help
+ */
+public class LLMRequestException extends IOException {
+    private final int statusCode;
+    private final boolean retryable;
+    private final long retryAfterMillis;
+
+    /**
+     * @param message Error description
+     * @param statusCode HTTP status (or provider error code), -1 if there was none
+     * @param retryable True if the same request may succeed later
+     * @param retryAfterMillis Delay requested by the provider, -1 if none was given
+     */
+    public LLMRequestException(String message, int statusCode, boolean retryable, long retryAfterMillis) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryable = retryable;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Create an exception for an HTTP error status, classifying it by code
+     */
+    public static LLMRequestException forStatus(int statusCode, String message, long retryAfterMillis) {
+        return new LLMRequestException(message, statusCode, RetryPolicy.isRetryableStatus(statusCode), retryAfterMillis);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -13,13 +13,32 @@ import com.thereallemon.llmconversations.memory.ConversationMemory;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import net.minecraft.world.entity.player.Player;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Builds context-aware system prompts for LLM conversations
  */
 public class PromptBuilder {
     
+    // System prompt template, compiled once per config value
+    private static volatile CompiledSystemPrompt compiledPrompt;
+
+    // Whitespace after the end of a sentence
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+    
+    /**
+     * The configured template, whole and split into stable and volatile sentences
+     */
+    private record CompiledSystemPrompt(String source, PromptTemplate full, PromptTemplate stable, PromptTemplate volatilePart) {
+    }
+    
     /**
      * Build a system prompt with citizen and player context
      * @param citizen The citizen being conversed with
@@ -27,72 +46,270 @@ public class PromptBuilder {
      * @return Formatted system prompt with all placeholders replaced
      */
     public static String buildSystemPrompt(ICitizenData citizen, Player player) {
-        String template = LLMConfig.CLIENT.systemPrompt.get();
-        IColony colony = citizen.getColony();
-        
-        // Build base prompt with placeholders replaced
-        String basePrompt = template
-            .replace("{name}", citizen.getName())
-            .replace("{job}", getJobName(citizen))
-            .replace("{colony_name}", colony.getName())
-            .replace("{player_name}", player.getName().getString())
-            .replace("{happiness}", String.valueOf(getHappinessLevel(citizen)))
-            .replace("{saturation}", String.format("%.1f", citizen.getSaturation()))
-            .replace("{skills}", getSkillsSummary(citizen));
+        return buildSystemPromptParts(citizen, player).full();
+    }
+    
+    /**
+     * Build a system prompt split for provider-side prompt caching
+     * When the cache-friendly layout is enabled, template sentences that use volatile
+     * placeholders and the colony events move to the volatile suffix, so the stable prefix
+     * (persona and memories) stays byte-identical across turns. Otherwise the whole prompt
+     * is returned as the prefix.
+     * @param citizen The citizen being conversed with
+     * @param player The player conversing
+     * @return The system prompt parts
+     */
+    public static SystemPrompt buildSystemPromptParts(ICitizenData citizen, Player player) {
+        return buildSystemPromptParts(citizen, player.getUUID(), player.getName().getString(), null);
+    }
+
+    /**
+     * Build a system prompt with the memories most relevant to the player's message
+     * @param citizen The citizen being conversed with
+     * @param player The player conversing
+     * @param query The player's latest message, or null for the most recent memories
+     * @return The system prompt parts
+     */
+    public static SystemPrompt buildSystemPromptParts(ICitizenData citizen, Player player, String query) {
+        return buildSystemPromptParts(citizen, player.getUUID(), player.getName().getString(), query);
+    }
+    
+    /**
+     * Build a system prompt split for provider-side prompt caching
+     * Without a player ID only the citizen's public memories are included.
+     * @param citizen The citizen being conversed with
+     * @param playerName Name of the player conversing
+     * @return The system prompt parts
+     */
+    public static SystemPrompt buildSystemPromptParts(ICitizenData citizen, String playerName) {
+        return buildSystemPromptParts(citizen, null, playerName, null);
+    }
+
+    /**
+     * Build a system prompt split for provider-side prompt caching
+     * @param citizen The citizen being conversed with
+     * @param playerId The player conversing, or null to include only public memories
+     * @param playerName Name of the player conversing
+     * @param query The player's latest message, or null for the most recent memories
+     * @return The system prompt parts
+     */
+    public static SystemPrompt buildSystemPromptParts(ICitizenData citizen, UUID playerId, String playerName, String query) {
+        CompiledSystemPrompt template = getCompiledPrompt();
+        Function<PromptTemplate.Placeholder, String> values = placeholderValues(citizen, playerName);
         
         // Add conversation memories for context continuity
-        String memoryContext = buildMemoryContext(citizen, player);
+        MemoryContext memories = buildMemoryContext(citizen, playerId, playerName, query);
+        String memoryContext = memories.text();
 
         // Add recent colony events for situational awareness
         String eventsContext = buildColonyEventsContext(citizen);
         
-        String finalPrompt = basePrompt + memoryContext + eventsContext;
+        SystemPrompt prompt;
+        if (LLMConfig.CLIENT.promptCacheLayout.get()) {
+            // Memories picked for this message change from turn to turn, so they can't be part of the cached prefix
+            StringBuilder stablePrompt = new StringBuilder(template.stable().estimateLength() + memoryContext.length());
+            template.stable().renderTo(stablePrompt, values);
+            if (!memories.perMessage()) {
+                stablePrompt.append(memoryContext);
+            }
+            
+            StringBuilder volatilePrompt = new StringBuilder(
+                template.volatilePart().estimateLength() + memoryContext.length() + eventsContext.length() + 16);
+            if (!template.volatilePart().isEmpty()) {
+                volatilePrompt.append("Right now: ");
+                template.volatilePart().renderTo(volatilePrompt, values);
+            }
+            if (memories.perMessage()) {
+                volatilePrompt.append(memoryContext);
+            }
+            volatilePrompt.append(eventsContext);
+            prompt = new SystemPrompt(stablePrompt.toString(), volatilePrompt.toString().strip());
+        } else {
+            StringBuilder fullPrompt = new StringBuilder(
+                template.full().estimateLength() + memoryContext.length() + eventsContext.length());
+            template.full().renderTo(fullPrompt, values);
+            fullPrompt.append(memoryContext).append(eventsContext);
+            prompt = SystemPrompt.of(fullPrompt.toString());
+        }
+
+        if (DebugLogger.isDebugEnabled()) {
+            DebugLogger.debugSection("Generated System Prompt");
+            DebugLogger.debug("Citizen: {} ({})", citizen.getName(), values.apply(PromptTemplate.Placeholder.JOB));
+            DebugLogger.debug("Colony: {}", citizen.getColony().getName());
+            DebugLogger.debug("Happiness: {}", values.apply(PromptTemplate.Placeholder.HAPPINESS));
+            DebugLogger.debug("Saturation: {}", values.apply(PromptTemplate.Placeholder.SATURATION));
+            DebugLogger.debug("Full Prompt:\n{}", prompt.full());
+            DebugLogger.debugSeparator();
+        }
+        
+        return prompt;
+    }
+    
+    /**
+     * Compile the configured system prompt template again
+     * Called when the config is loaded or reloaded, so template errors show up right away.
+     */
+    public static void reloadTemplate() {
+        compiledPrompt = compile(LLMConfig.CLIENT.systemPrompt.get());
+    }
+    
+    /**
+     * Get the compiled template, recompiling if the config value changed
+     */
+    private static CompiledSystemPrompt getCompiledPrompt() {
+        String source = LLMConfig.CLIENT.systemPrompt.get();
+        CompiledSystemPrompt compiled = compiledPrompt;
+        if (compiled == null || !compiled.source().equals(source)) {
+            compiled = compile(source);
+            compiledPrompt = compiled;
+        }
+        return compiled;
+    }
+    
+    private static CompiledSystemPrompt compile(String source) {
+        PromptTemplate full = PromptTemplate.compile(source);
+        for (String unknown : full.getUnknownPlaceholders()) {
+            DebugLogger.error("Unknown placeholder " + unknown + " in system_prompt, it will be sent as written");
+        }
+        
+        String[] parts = splitVolatileSentences(source);
+        return new CompiledSystemPrompt(source, full, PromptTemplate.compile(parts[0]), PromptTemplate.compile(parts[1]));
+    }
+    
+    /**
+     * Placeholder values for one prompt, each computed on first use
+     */
+    private static Function<PromptTemplate.Placeholder, String> placeholderValues(ICitizenData citizen, String playerName) {
+        String[] values = new String[PromptTemplate.Placeholder.values().length];
+        return placeholder -> {
+            String value = values[placeholder.ordinal()];
+            if (value == null) {
+                value = switch (placeholder) {
+                    case NAME -> citizen.getName();
+                    case JOB -> getJobName(citizen);
+                    case COLONY_NAME -> citizen.getColony().getName();
+                    case PLAYER_NAME -> playerName;
+                    case HAPPINESS -> String.valueOf(getHappinessLevel(citizen));
+                    case SATURATION -> String.format("%.1f", citizen.getSaturation());
+                    case SKILLS -> getSkillsSummary(citizen);
+                };
+                values[placeholder.ordinal()] = value;
+            }
+            return value;
+        };
+    }
+    
+    /**
+     * Split a template into sentences without and with volatile placeholders
+     * Each sentence keeps the whitespace that followed it, so line and paragraph breaks survive.
+     * @return Array of {stable sentences, volatile sentences}
+     */
+    static String[] splitVolatileSentences(String template) {
+        StringBuilder stable = new StringBuilder();
+        StringBuilder volatileSentences = new StringBuilder();
+        
+        Matcher boundary = SENTENCE_END.matcher(template);
+        int start = 0;
+        while (start < template.length()) {
+            int end = boundary.find() ? boundary.end() : template.length();
+            String sentence = template.substring(start, end);
+            start = end;
 
-        DebugLogger.debugSection("Generated System Prompt");
-        DebugLogger.debug("Citizen: {} ({})", citizen.getName(), getJobName(citizen));
-        DebugLogger.debug("Colony: {}", colony.getName());
-        DebugLogger.debug("Happiness: {}", getHappinessLevel(citizen));
-        DebugLogger.debug("Saturation: {}", citizen.getSaturation());
-        DebugLogger.debug("Full Prompt:\n{}", finalPrompt);
-        DebugLogger.debugSeparator();
+            boolean isVolatile = false;
+            for (PromptTemplate.Placeholder placeholder : PromptTemplate.Placeholder.values()) {
+                if (placeholder.isVolatile() && sentence.contains(placeholder.getToken())) {
+                    isVolatile = true;
+                    break;
+                }
+            }
+            (isVolatile ? volatileSentences : stable).append(sentence);
+        }
         
-        return finalPrompt;
+        return new String[]{stable.toString().stripTrailing(), volatileSentences.toString().stripTrailing()};
     }
     
+    /**
+     * Memory section of the prompt
+     * @param text The formatted memories, or empty
+     * @param perMessage True if the memories were picked for the current message
+     */
+    private record MemoryContext(String text, boolean perMessage) {
+        static final MemoryContext EMPTY = new MemoryContext("", false);
+    }
+
     /**
      * Build memory context from past conversations with the player
-     * This allows the NPC to remember previous interactions and maintain continuity
+     * This allows the NPC to remember previous interactions and maintain continuity.
+     * Only the citizen's memories of this player are used, plus a few of their public memories
+     * of conversations with others. When the citizen remembers more than fit in the prompt,
+     * the ones most relevant to the player's message are used.
      *
      * @param citizen The citizen to get memories for
-     * @param player The player having the conversation
-     * @return Formatted string with past conversation memories, or empty string if no memories
+     * @param playerId The player having the conversation, or null for public memories only
+     * @param playerName Name of the player having the conversation
+     * @param query The player's latest message, or null for the most recent memories
+     * @return The memory section
      */
-    private static String buildMemoryContext(ICitizenData citizen, Player player) {
-        ConversationMemory memory = ConversationMemory.get(citizen);
-
-        if (memory == null || memory.getSummaries().isEmpty()) {
-            return "";
+    private static MemoryContext buildMemoryContext(ICitizenData citizen, UUID playerId, String playerName, String query) {
+        int maxMemories = LLMConfig.CLIENT.memoriesInPrompt.get();
+        List<String> summaries = List.of();
+        boolean perMessage = false;
+        int remembered = 0;
+        if (playerId != null) {
+            ConversationMemory memory = ConversationMemory.get(citizen, playerId);
+            summaries = memory.findRelevant(query, maxMemories);
+            perMessage = query != null && memory.size() > maxMemories;
+            remembered = memory.size();
         }
 
-        List<String> summaries = memory.getSummaries();
-
-        // Get the most recent memories (last 5-10 summaries)
-        int maxMemories = LLMConfig.CLIENT.maxConversationHistoryLength.get();
-        int startIndex = Math.max(0, summaries.size() - maxMemories);
-
-        StringBuilder context = new StringBuilder("\n\nYour memories of past conversations with ");
-        context.append(player.getName().getString()).append(":\n");
+        List<String> publicSummaries = publicMemories(citizen, playerName);
+        if (summaries.isEmpty() && publicSummaries.isEmpty()) {
+            return MemoryContext.EMPTY;
+        }
 
-        for (int i = startIndex; i < summaries.size(); i++) {
-            context.append("- ").append(summaries.get(i)).append("\n");
+        StringBuilder context = new StringBuilder();
+        if (!summaries.isEmpty()) {
+            context.append("\n\nYour memories of past conversations with ").append(playerName).append(":\n");
+            for (String summary : summaries) {
+                context.append("- ").append(summary).append("\n");
+            }
+        }
+        if (!publicSummaries.isEmpty()) {
+            context.append("\n\nYour memories of recent conversations with others:\n");
+            for (String summary : publicSummaries) {
+                context.append("- ").append(summary).append("\n");
+            }
         }
 
         context.append("\nUse these memories to maintain continuity in your conversation. ");
         context.append("If the player asks you something you should know from a previous conversation, refer to your memories.");
 
-        DebugLogger.debug("Added {} memories to system prompt", summaries.size());
+        DebugLogger.debug("Added {} of {} player memories and {} public memories to system prompt",
+            summaries.size(), remembered, publicSummaries.size());
+
+        return new MemoryContext(context.toString(), perMessage);
+    }
 
-        return context.toString();
+    /**
+     * The citizen's most recent public memories, leaving out those about the current player
+     * (their own memories of the player already cover those)
+     */
+    private static List<String> publicMemories(ICitizenData citizen, String playerName) {
+        int publicLength = LLMConfig.CLIENT.publicMemoryLength.get();
+        if (publicLength == 0) {
+            return List.of();
+        }
+
+        List<String> all = ConversationMemory.get(citizen, null).getSummaries();
+        String ownPrefix = ConversationMemory.publicPrefix(playerName);
+        List<String> result = new ArrayList<>(Math.min(all.size(), publicLength));
+        for (int i = all.size() - 1; i >= 0 && result.size() < publicLength; i--) {
+            if (!all.get(i).startsWith(ownPrefix)) {
+                result.add(all.get(i));
+            }
+        }
+        Collections.reverse(result);
+        return result;
     }
 
     /**
@@ -163,6 +380,7 @@ public class PromptBuilder {
      * Build recent colony events context for the LLM
      * This gives the NPC awareness of recent happenings in the colony,
      * making conversations feel more alive and situationally aware.
+     * Formatted lines are cached per colony, see {@link ColonyEventCache}.
      * 
      * @param citizen The citizen to get events for
      * @return Formatted string with recent colony events, or empty string if no events
@@ -177,84 +395,77 @@ public class PromptBuilder {
                 return "";
             }
             
-            // Get the last 5-10 most recent events (configurable)
-            int maxEvents = LLMConfig.CLIENT.maxConversationHistoryLength.get();
-            int eventCount = Math.min(maxEvents, events.size());
-            int startIndex = Math.max(0, events.size() - eventCount);
+            // Get the most recent events (as many as memories, configurable)
+            int maxEvents = LLMConfig.CLIENT.memoriesInPrompt.get();
+            return ColonyEventCache.get(colony, events, maxEvents, PromptBuilder::formatEvent);
             
-            StringBuilder context = new StringBuilder("\n\nRecent colony events you're aware of:\n");
+        } catch (Exception e) {
+            // If event fetching fails, just return empty string
+            // Don't want to crash conversation over missing events
+            return "";
+        }
+    }
+    
+    /**
+     * Format a single colony event as a natural sentence line
+     */
+    private static String formatEvent(IColonyEventDescription event) {
+        StringBuilder line = new StringBuilder();
+        
+        // Format event into readable string based on type
+        if (event instanceof ICitizenEventDescription citizenEvent) {
+            String eventName = citizenEvent.getName();
+            String lowerName = eventName.toLowerCase(Locale.ROOT);
+            String citizenName = citizenEvent.getCitizenName();
             
-            for (int i = startIndex; i < events.size(); i++) {
-                IColonyEventDescription event = events.get(i);
-                
-                // Format event into readable string based on type
-                if (event instanceof ICitizenEventDescription) {
-                    ICitizenEventDescription citizenEvent = (ICitizenEventDescription) event;
-                    String eventName = citizenEvent.getName();
-                    String citizenName = citizenEvent.getCitizenName();
-                    
-                    // Make event descriptions more natural
-                    if (eventName.toLowerCase().contains("born")) {
-                        context.append("- ").append(citizenName).append(" was born in the colony\n");
-                    } else if (eventName.toLowerCase().contains("died")) {
-                        // **NEW: Include death cause**
-                        if (event instanceof CitizenDiedEvent) {
-                            CitizenDiedEvent diedEvent = (CitizenDiedEvent) event;
-                            String deathCause = diedEvent.getDeathCause();
-                            if (deathCause != null && !deathCause.isEmpty()) {
-                                context.append("- ").append(citizenName).append(" passed away (").append(deathCause).append(")\n");
-                            } else {
-                                context.append("- ").append(citizenName).append(" passed away\n");
-                            }
-                        } else {
-                            context.append("- ").append(citizenName).append(" passed away\n");
-                        }
-                    } else if (eventName.toLowerCase().contains("spawn")) {
-                        // Distinguish between regular citizens and visitors
-                        if (event instanceof VisitorSpawnedEvent) {
-                            context.append("- ").append(citizenName).append(" arrived as a visitor\n");
-                        } else {
-                            context.append("- ").append(citizenName).append(" joined the colony\n");
-                        }
-                    } else if (eventName.toLowerCase().contains("grown")) {
-                        context.append("- ").append(citizenName).append(" grew up\n");
-                    } else {
-                        context.append("- ").append(eventName).append(": ").append(citizenName).append("\n");
-                    }
-                    
-                } else if (event instanceof IBuildingEventDescription) {
-                    IBuildingEventDescription buildingEvent = (IBuildingEventDescription) event;
-                    String eventName = buildingEvent.getName();
-                    String buildingName = buildingEvent.getBuildingName();
-                    int level = buildingEvent.getLevel();
-                    
-                    // Make building event descriptions more natural
-                    if (eventName.toLowerCase().contains("built")) {
-                        context.append("- A new ").append(buildingName).append(" was built\n");
-                    } else if (eventName.toLowerCase().contains("upgrade")) {
-                        context.append("- The ").append(buildingName).append(" was upgraded to level ").append(level).append("\n");
-                    } else if (eventName.toLowerCase().contains("repair")) {
-                        context.append("- The ").append(buildingName).append(" was repaired\n");
-                    } else if (eventName.toLowerCase().contains("deconstructed") || eventName.toLowerCase().contains("removed")) {
-                        context.append("- The ").append(buildingName).append(" was removed\n");
-                    } else {
-                        context.append("- ").append(eventName).append(": ").append(buildingName).append(" (level ").append(level).append(")\n");
-                    }
-                    
+            // Make event descriptions more natural
+            if (lowerName.contains("born")) {
+                line.append("- ").append(citizenName).append(" was born in the colony\n");
+            } else if (lowerName.contains("died")) {
+                // Include death cause
+                String deathCause = event instanceof CitizenDiedEvent diedEvent ? diedEvent.getDeathCause() : null;
+                if (deathCause != null && !deathCause.isEmpty()) {
+                    line.append("- ").append(citizenName).append(" passed away (").append(deathCause).append(")\n");
                 } else {
-                    // Generic event
-                    context.append("- ").append(event.getName()).append("\n");
+                    line.append("- ").append(citizenName).append(" passed away\n");
                 }
+            } else if (lowerName.contains("spawn")) {
+                // Distinguish between regular citizens and visitors
+                if (event instanceof VisitorSpawnedEvent) {
+                    line.append("- ").append(citizenName).append(" arrived as a visitor\n");
+                } else {
+                    line.append("- ").append(citizenName).append(" joined the colony\n");
+                }
+            } else if (lowerName.contains("grown")) {
+                line.append("- ").append(citizenName).append(" grew up\n");
+            } else {
+                line.append("- ").append(eventName).append(": ").append(citizenName).append("\n");
             }
             
-            context.append("\nYou can naturally mention these events in conversation, only if relevant.");
+        } else if (event instanceof IBuildingEventDescription buildingEvent) {
+            String eventName = buildingEvent.getName();
+            String lowerName = eventName.toLowerCase(Locale.ROOT);
+            String buildingName = buildingEvent.getBuildingName();
+            int level = buildingEvent.getLevel();
             
-            return context.toString();
+            // Make building event descriptions more natural
+            if (lowerName.contains("built")) {
+                line.append("- A new ").append(buildingName).append(" was built\n");
+            } else if (lowerName.contains("upgrade")) {
+                line.append("- The ").append(buildingName).append(" was upgraded to level ").append(level).append("\n");
+            } else if (lowerName.contains("repair")) {
+                line.append("- The ").append(buildingName).append(" was repaired\n");
+            } else if (lowerName.contains("deconstructed") || lowerName.contains("removed")) {
+                line.append("- The ").append(buildingName).append(" was removed\n");
+            } else {
+                line.append("- ").append(eventName).append(": ").append(buildingName).append(" (level ").append(level).append(")\n");
+            }
             
-        } catch (Exception e) {
-            // If event fetching fails, just return empty string
-            // Don't want to crash conversation over missing events
-            return "";
+        } else {
+            // Generic event
+            line.append("- ").append(event.getName()).append("\n");
         }
+        
+        return line.toString();
     }
 }
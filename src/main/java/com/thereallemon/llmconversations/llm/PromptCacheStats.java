@@ -0,0 +1,35 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how many prompt tokens the provider served from its prompt cache
+ */
+public class PromptCacheStats {
+    private static final AtomicLong promptTokens = new AtomicLong();
+    private static final AtomicLong cachedTokens = new AtomicLong();
+
+    /**
+     * Record the usage of a completed request
+     * @param usage Usage reported by the provider, may be null
+     */
+    public static void record(TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        long prompt = promptTokens.addAndGet(usage.promptTokens());
+        long cached = cachedTokens.addAndGet(usage.cachedTokens());
+        DebugLogger.debug("Prompt tokens: {} ({} cached), overall cache hit rate: {}%",
+            usage.promptTokens(), usage.cachedTokens(), prompt == 0 ? 0 : cached * 100 / prompt);
+    }
+
+    public static long getPromptTokens() {
+        return promptTokens.get();
+    }
+
+    public static long getCachedTokens() {
+        return cachedTokens.get();
+    }
+}
@@ -0,0 +1,179 @@
+package com.thereallemon.llmconversations.llm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A prompt template parsed once into literal text and placeholder slots
+ * Rendering appends the segments to a single builder and only asks for the values of
+ * placeholders the template actually uses. Placeholders that aren't known are kept as
+ * literal text and reported by {@link #getUnknownPlaceholders()}.
+ */
+public final class PromptTemplate {
+
+    /**
+     * Placeholders available in the system prompt template
+     */
+    public enum Placeholder {
+        NAME("name", false),
+        JOB("job", false),
+        COLONY_NAME("colony_name", false),
+        PLAYER_NAME("player_name", false),
+        HAPPINESS("happiness", true),
+        SATURATION("saturation", true),
+        SKILLS("skills", false);
+
+        private final String token;
+        private final boolean isVolatile;
+
+        Placeholder(String key, boolean isVolatile) {
+            this.token = "{" + key + "}";
+            this.isVolatile = isVolatile;
+        }
+
+        /**
+         * @return The placeholder as written in templates, e.g. "{name}"
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Volatile placeholders change from turn to turn, so they are kept out of the cached prompt prefix
+         */
+        public boolean isVolatile() {
+            return isVolatile;
+        }
+
+        static Placeholder fromToken(String token) {
+            for (Placeholder placeholder : values()) {
+                if (placeholder.token.equals(token)) {
+                    return placeholder;
+                }
+            }
+            return null;
+        }
+    }
+
+    // A literal, or a placeholder when literal is null
+    private record Segment(String literal, Placeholder placeholder) {
+    }
+
+    private final Segment[] segments;
+    private final int literalLength;
+    private final Set<Placeholder> used;
+    private final List<String> unknownPlaceholders;
+
+    private PromptTemplate(Segment[] segments, int literalLength, Set<Placeholder> used, List<String> unknownPlaceholders) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+        this.used = used;
+        this.unknownPlaceholders = unknownPlaceholders;
+    }
+
+    /**
+     * Parse a template
+     * @param source Template text with {placeholder} markers
+     * @return The compiled template
+     */
+    public static PromptTemplate compile(String source) {
+        List<Segment> segments = new ArrayList<>();
+        Set<Placeholder> used = EnumSet.noneOf(Placeholder.class);
+        List<String> unknown = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int index = 0;
+        while (index < source.length()) {
+            int open = source.indexOf('{', index);
+            int close = open < 0 ? -1 : source.indexOf('}', open);
+            if (close < 0) {
+                literal.append(source, index, source.length());
+                break;
+            }
+
+            literal.append(source, index, open);
+            String token = source.substring(open, close + 1);
+            Placeholder placeholder = Placeholder.fromToken(token);
+            if (placeholder != null) {
+                if (literal.length() > 0) {
+                    segments.add(new Segment(literal.toString(), null));
+                    literal.setLength(0);
+                }
+                segments.add(new Segment(null, placeholder));
+                used.add(placeholder);
+            } else {
+                // Keep unknown markers as text so the template still reads the same
+                literal.append(token);
+                unknown.add(token);
+            }
+            index = close + 1;
+        }
+        if (literal.length() > 0) {
+            segments.add(new Segment(literal.toString(), null));
+        }
+
+        int literalLength = 0;
+        for (Segment segment : segments) {
+            if (segment.literal != null) {
+                literalLength += segment.literal.length();
+            }
+        }
+        return new PromptTemplate(segments.toArray(new Segment[0]), literalLength, used,
+            Collections.unmodifiableList(unknown));
+    }
+
+    /**
+     * Append the rendered template
+     * @param out Builder to append to
+     * @param values Value of each placeholder; only called for placeholders the template uses
+     */
+    public void renderTo(StringBuilder out, Function<Placeholder, String> values) {
+        for (Segment segment : segments) {
+            out.append(segment.literal != null ? segment.literal : values.apply(segment.placeholder));
+        }
+    }
+
+    /**
+     * Render the template into a new string
+     * @param values Value of each placeholder; only called for placeholders the template uses
+     * @return The rendered text
+     */
+    public String render(Function<Placeholder, String> values) {
+        StringBuilder out = new StringBuilder(estimateLength());
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    /**
+     * @return Rough length of the rendered text, for sizing builders
+     */
+    public int estimateLength() {
+        return literalLength + segments.length * 16;
+    }
+
+    /**
+     * @return True if the template renders to nothing
+     */
+    public boolean isEmpty() {
+        return segments.length == 0;
+    }
+
+    /**
+     * @param placeholder A placeholder
+     * @return True if the template contains it
+     */
+    public boolean uses(Placeholder placeholder) {
+        return used.contains(placeholder);
+    }
+
+    /**
+     * @return Markers in {braces} that aren't known placeholders, in order of appearance
+     */
+    public List<String> getUnknownPlaceholders() {
+        return unknownPlaceholders;
+    }
+}
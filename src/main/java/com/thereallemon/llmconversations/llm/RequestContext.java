@@ -0,0 +1,38 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.Level;
+
+import java.util.UUID;
+
+/**
+ * Describes who an LLM request is for, used for scheduling and accounting
+ * @param type The kind of request
+ * @param playerId The player the request is made for, or null for system work
+ * @param dimension The dimension of the citizen's colony, or null without a colony
+ * @param colonyId The colony of the citizen, unique only within its dimension
+ * @param citizenId The citizen's ID within the colony
+ */
+public record RequestContext(RequestType type, UUID playerId, ResourceKey<Level> dimension, int colonyId, int citizenId) {
+
+    /**
+     * Create a context for a request about a citizen on behalf of a player
+     * @param type The kind of request
+     * @param player The player, or null for system work
+     * @param citizen The citizen being talked to
+     * @return The request context
+     */
+    public static RequestContext of(RequestType type, Player player, ICitizenData citizen) {
+        IColony colony = citizen.getColony();
+        return new RequestContext(
+            type,
+            player != null ? player.getUUID() : null,
+            colony != null ? colony.getDimension() : null,
+            colony != null ? colony.getID() : -1,
+            citizen.getId()
+        );
+    }
+}
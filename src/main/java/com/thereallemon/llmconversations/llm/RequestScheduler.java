@@ -0,0 +1,315 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.metrics.ModMetrics;
+import com.thereallemon.llmconversations.util.DebugLogger;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Global scheduler that all LLM traffic goes through.
+ * Caps the number of requests in flight, serves interactive requests before background
+ * work, and shares capacity fairly: round-robin across colonies, then across players
+ * within a colony, so one busy colony or player can't crowd out the others.
+ */
+public class RequestScheduler {
+    private static final RequestScheduler INSTANCE = new RequestScheduler();
+
+    private final FairQueue interactiveQueue = new FairQueue();
+    private final FairQueue backgroundQueue = new FairQueue();
+    private int inFlight = 0;
+
+    // True while a thread is in dispatch's loop; others leave starting tasks to it
+    private boolean dispatching = false;
+
+    // Counters
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private RequestScheduler() {
+    }
+
+    /**
+     * Get the shared scheduler
+     * @return The scheduler instance
+     */
+    public static RequestScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a request and start it once capacity is available
+     * The slot is held until the returned future of the task completes, including retries.
+     * @param context Who the request is for
+     * @param task Starts the request and returns its future
+     * @return Future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(RequestContext context, Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledTask<T> scheduled = new ScheduledTask<>(context, task, result);
+
+        submitted.incrementAndGet();
+        synchronized (this) {
+            (context.type().isInteractive() ? interactiveQueue : backgroundQueue).add(scheduled);
+        }
+
+        dispatch();
+        return result;
+    }
+
+    /**
+     * Start queued tasks while there is capacity
+     * Not reentrant: a task whose future is already complete (open circuit breaker, cached or mock
+     * response) releases its slot from inside start(), and that nested call only frees the slot for
+     * the running loop instead of starting the next task one stack frame deeper.
+     */
+    private void dispatch() {
+        synchronized (this) {
+            if (dispatching) {
+                return; // The running loop sees the freed slot or new task
+            }
+            dispatching = true;
+        }
+
+        boolean finished = false;
+        try {
+            ScheduledTask<?> next;
+            while ((next = nextTask()) != null) {
+                start(next);
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                synchronized (this) {
+                    dispatching = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next task that may start and count it in flight, or end dispatching if there is none
+     * Background work may not take the last free slot, so an interactive turn never waits behind it.
+     */
+    private synchronized ScheduledTask<?> nextTask() {
+        int maxInFlight = LLMConfig.CLIENT.maxConcurrentRequests.get();
+        int backgroundLimit = Math.max(1, maxInFlight - 1);
+
+        ScheduledTask<?> next = null;
+        if (inFlight < maxInFlight) {
+            next = interactiveQueue.poll();
+            if (next == null && inFlight < backgroundLimit) {
+                next = backgroundQueue.poll();
+            }
+        }
+        if (next == null) {
+            dispatching = false;
+            return null;
+        }
+        inFlight++;
+        return next;
+    }
+
+    private <T> void start(ScheduledTask<T> scheduled) {
+        long waited = System.nanoTime() - scheduled.enqueuedAt;
+        started.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        ModMetrics.QUEUE_WAIT.recordNanos(waited);
+
+        if (scheduled.result.isDone()) {
+            // Cancelled while queued
+            release();
+            return;
+        }
+
+        DebugLogger.debug("Starting {} request for colony {} in {} after waiting {}ms",
+            scheduled.context.type(), scheduled.context.colonyId(), scheduled.context.dimension(), waited / 1_000_000);
+
+        CompletableFuture<T> future;
+        try {
+            future = scheduled.task.get();
+        } catch (Exception e) {
+            release();
+            scheduled.result.completeExceptionally(e);
+            return;
+        }
+
+        future.whenComplete((value, throwable) -> {
+            release();
+            if (throwable != null) {
+                scheduled.result.completeExceptionally(throwable);
+            } else {
+                scheduled.result.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        completed.incrementAndGet();
+        dispatch();
+    }
+
+    /**
+     * @return Number of requests currently running
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @param interactive True for the interactive queue, false for background
+     * @return Number of requests waiting in that queue
+     */
+    public synchronized int getQueueDepth(boolean interactive) {
+        return interactive ? interactiveQueue.size : backgroundQueue.size;
+    }
+
+    /**
+     * @return Total number of requests submitted
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return Total number of requests that have finished (successfully or not)
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return Average time requests spent queued, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = started.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * @return Longest time a request spent queued, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * A queued request
+     */
+    private static class ScheduledTask<T> {
+        final RequestContext context;
+        final Supplier<CompletableFuture<T>> task;
+        final CompletableFuture<T> result;
+        final long enqueuedAt = System.nanoTime();
+
+        ScheduledTask(RequestContext context, Supplier<CompletableFuture<T>> task, CompletableFuture<T> result) {
+            this.context = context;
+            this.task = task;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Two-level round-robin queue: colonies take turns, and players take turns within a colony
+     * Not thread-safe; guarded by the scheduler's lock.
+     */
+    private static class FairQueue {
+        private final Map<ColonyKey, ColonyFlows> colonies = new HashMap<>();
+        private final ArrayDeque<ColonyFlows> colonyRotation = new ArrayDeque<>();
+        int size = 0;
+
+        void add(ScheduledTask<?> task) {
+            ColonyFlows flows = colonies.computeIfAbsent(
+                new ColonyKey(task.context.dimension(), task.context.colonyId()), ColonyFlows::new);
+            if (flows.isEmpty()) {
+                colonyRotation.addLast(flows);
+            }
+            flows.add(task);
+            size++;
+        }
+
+        ScheduledTask<?> poll() {
+            ColonyFlows flows = colonyRotation.pollFirst();
+            if (flows == null) {
+                return null;
+            }
+
+            ScheduledTask<?> task = flows.poll();
+            if (flows.isEmpty()) {
+                colonies.remove(flows.key);
+            } else {
+                colonyRotation.addLast(flows);
+            }
+            size--;
+            return task;
+        }
+    }
+
+    /**
+     * Colony IDs are only unique within a dimension
+     */
+    private record ColonyKey(ResourceKey<Level> dimension, int colonyId) { }
+
+    /**
+     * Per-player queues of one colony
+     */
+    private static class ColonyFlows {
+        final ColonyKey key;
+        private final Map<UUID, ArrayDeque<ScheduledTask<?>>> players = new HashMap<>();
+        private final ArrayDeque<UUID> playerRotation = new ArrayDeque<>();
+
+        ColonyFlows(ColonyKey key) {
+            this.key = key;
+        }
+
+        boolean isEmpty() {
+            return playerRotation.isEmpty();
+        }
+
+        void add(ScheduledTask<?> task) {
+            UUID playerId = task.context.playerId(); // null groups system work together
+            ArrayDeque<ScheduledTask<?>> queue = players.get(playerId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                players.put(playerId, queue);
+                playerRotation.addLast(playerId == null ? NO_PLAYER : playerId);
+            }
+            queue.addLast(task);
+        }
+
+        ScheduledTask<?> poll() {
+            UUID rotationKey = playerRotation.pollFirst();
+            if (rotationKey == null) {
+                return null;
+            }
+
+            UUID playerId = rotationKey == NO_PLAYER ? null : rotationKey;
+            ArrayDeque<ScheduledTask<?>> queue = players.get(playerId);
+            ScheduledTask<?> task = queue.pollFirst();
+            if (queue.isEmpty()) {
+                players.remove(playerId);
+            } else {
+                playerRotation.addLast(rotationKey);
+            }
+            return task;
+        }
+    }
+
+    // ArrayDeque doesn't allow null, so system work uses this placeholder in the rotation
+    private static final UUID NO_PLAYER = new UUID(0L, 0L);
+}
@@ -0,0 +1,25 @@
+package com.thereallemon.llmconversations.llm;
+
+/**
+ * Kinds of LLM requests the mod makes, each with a scheduling priority
+ */
+public enum RequestType {
+    CHAT(true),
+    SUMMARY(false),
+    ROLLING_SUMMARY(false);
+
+    private final boolean interactive;
+
+    RequestType(boolean interactive) {
+        this.interactive = interactive;
+    }
+
+    /**
+     * Interactive requests have a player waiting on them and are always scheduled
+     * ahead of background work such as summarization
+     * @return True if a player is waiting for this request
+     */
+    public boolean isInteractive() {
+        return interactive;
+    }
+}
@@ -0,0 +1,126 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of LLM responses for identical requests.
+ * Keyed by a hash of the full request (model, parameters, system prompt and messages),
+ * bounded in size with LRU eviction, and entries expire after a configurable time.
+ */
+public class ResponseCache {
+    private static final ResponseCache INSTANCE = new ResponseCache();
+
+    // Access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > LLMConfig.CLIENT.responseCacheMaxEntries.get()) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ResponseCache() {
+    }
+
+    /**
+     * Get the shared cache
+     * @return The cache instance
+     */
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Whether requests with the current settings may be cached
+     * High temperatures are meant to vary, so caching them would defeat the purpose.
+     * @return True if caching is enabled for the configured temperature
+     */
+    public boolean isCacheable() {
+        return LLMConfig.CLIENT.responseCacheEnabled.get()
+            && LLMConfig.CLIENT.responseCacheMaxEntries.get() > 0
+            && LLMConfig.CLIENT.temperature.get() <= LLMConfig.CLIENT.responseCacheMaxTemperature.get();
+    }
+
+    /**
+     * Look up a cached response
+     * @param key Cache key from {@link #keyFor(String)}
+     * @return The cached response, or null on a miss
+     */
+    public synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.response;
+    }
+
+    /**
+     * Store a response
+     * @param key Cache key from {@link #keyFor(String)}
+     * @param response The response to cache
+     */
+    public synchronized void put(String key, String response) {
+        long ttlMillis = LLMConfig.CLIENT.responseCacheTtlSeconds.get() * 1000L;
+        entries.put(key, new Entry(response, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Remove all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Compute the cache key of a request
+     * @param requestJson The serialized request body (without transport-only fields such as stream)
+     * @return Hex-encoded SHA-256 of the request
+     */
+    public static String keyFor(String requestJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(requestJson.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private record Entry(String response, long expiresAt) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed LLM request should be retried
+ */
+public class RetryPolicy {
+
+    /**
+     * HTTP statuses worth retrying: timeouts, rate limits and server-side failures.
+     * Other 4xx errors (bad request, bad key, no credits, unknown model) will fail the same way again.
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 408 || statusCode == 425 || statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Classify a failure
+     * @param error The failure
+     * @return True if retrying may succeed
+     */
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof LLMRequestException requestException) {
+            return requestException.isRetryable();
+        }
+        // Connection problems, timeouts and empty responses
+        return error instanceof IOException;
+    }
+
+    /**
+     * Whether a failure says something about the provider's health and should count
+     * towards opening the circuit breaker. Client errors such as a bad key don't.
+     */
+    public static boolean countsAsProviderFailure(Throwable error) {
+        return isRetryable(error);
+    }
+
+    /**
+     * Compute the delay before the next attempt: exponential backoff with full jitter,
+     * but never shorter than the provider's Retry-After.
+     * @param attemptNumber The attempt that just failed (0 for the first)
+     * @param retryAfterMillis Delay requested by the provider, or -1
+     * @return Delay in milliseconds, or -1 if the requested delay exceeds the configured maximum
+     */
+    public static long backoffMillis(int attemptNumber, long retryAfterMillis) {
+        long baseDelay = LLMConfig.CLIENT.retryBaseDelayMillis.get();
+        long maxDelay = LLMConfig.CLIENT.retryMaxDelayMillis.get();
+
+        if (retryAfterMillis > maxDelay) {
+            return -1; // Provider wants us to back off longer than a player should wait
+        }
+
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attemptNumber, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return Math.max(jittered, retryAfterMillis);
+    }
+
+    /**
+     * Parse a Retry-After header, which is either a number of seconds or an HTTP date
+     * @param header The header value, may be null
+     * @return Delay in milliseconds, or -1 if absent or unparseable
+     */
+    public static long parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return -1;
+        }
+        String value = header.trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException ignored) {
+            // Not a number, try a date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (Exception ignored) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.thereallemon.llmconversations.llm;
+
+/**
+ * A system prompt split into a stable prefix and a volatile suffix.
+ * The prefix stays byte-identical across turns of a conversation so providers can
+ * cache it; the suffix holds values that change every turn (mood, hunger, events).
+ * @param stablePrefix Persona, colony and memory context
+ * @param volatileSuffix Per-turn context, empty if the prompt isn't split
+ */
+public record SystemPrompt(String stablePrefix, String volatileSuffix) {
+
+    /**
+     * Wrap an unsplit prompt
+     * @param prompt The full prompt
+     * @return A system prompt with no volatile suffix
+     */
+    public static SystemPrompt of(String prompt) {
+        return new SystemPrompt(prompt, "");
+    }
+
+    /**
+     * @return True if there is per-turn context to send separately
+     */
+    public boolean hasVolatileSuffix() {
+        return !volatileSuffix.isEmpty();
+    }
+
+    /**
+     * @return The whole prompt as one string
+     */
+    public String full() {
+        return hasVolatileSuffix() ? stablePrefix + "\n\n" + volatileSuffix : stablePrefix;
+    }
+}
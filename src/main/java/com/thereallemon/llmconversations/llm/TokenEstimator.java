@@ -0,0 +1,44 @@
+package com.thereallemon.llmconversations.llm;
+
+/**
+ * Fast local estimate of how many tokens a text uses.
+ * Approximates BPE tokenizers without a vocabulary: each run of letters or digits costs
+ * one token per four characters (rounded up), each punctuation or symbol costs one, and
+ * whitespace is free. Good enough for budgeting, not for billing.
+ */
+public class TokenEstimator {
+    // Role markers and separators the API adds around every message
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    /**
+     * Estimate the token count of a text
+     * @param text The text, may be null
+     * @return Estimated number of tokens
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int tokens = 0;
+        int runLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                runLength++;
+                continue;
+            }
+            if (runLength > 0) {
+                tokens += (runLength + 3) / 4;
+                runLength = 0;
+            }
+            if (!Character.isWhitespace(c)) {
+                tokens++;
+            }
+        }
+        if (runLength > 0) {
+            tokens += (runLength + 3) / 4;
+        }
+        return tokens;
+    }
+}
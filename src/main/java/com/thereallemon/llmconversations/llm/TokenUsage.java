@@ -0,0 +1,51 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Token counts reported in a response's usage block
+ * @param promptTokens Input tokens, including cached ones
+ * @param completionTokens Output tokens, including reasoning
+ * @param reasoningTokens Output tokens spent on reasoning
+ * @param cachedTokens Input tokens served from the provider's prompt cache
+ * @param cost Cost of the request in USD, or 0 if the provider didn't report it (OpenRouter does)
+ */
+public record TokenUsage(long promptTokens, long completionTokens, long reasoningTokens, long cachedTokens, double cost) {
+
+    /**
+     * Parse an OpenAI-style usage object
+     * @param usage The usage object, may be null
+     * @return The parsed usage, or null if none was reported
+     */
+    public static TokenUsage parse(JsonObject usage) {
+        if (usage == null) {
+            return null;
+        }
+        return new TokenUsage(
+            getLong(usage, "prompt_tokens"),
+            getLong(usage, "completion_tokens"),
+            getLong(getObject(usage, "completion_tokens_details"), "reasoning_tokens"),
+            getLong(getObject(usage, "prompt_tokens_details"), "cached_tokens"),
+            getDouble(usage, "cost")
+        );
+    }
+
+    private static JsonObject getObject(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    private static long getLong(JsonObject object, String key) {
+        if (object == null) {
+            return 0;
+        }
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsLong() : 0;
+    }
+
+    private static double getDouble(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsDouble() : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.google.gson.JsonObject;
+import com.thereallemon.llmconversations.llm.ChatMessage;
+import com.thereallemon.llmconversations.llm.SystemPrompt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A backend that chat requests can be sent to
+ * Providers only perform single attempts; scheduling, caching, retries and the circuit
+ * breaker are handled by {@link com.thereallemon.llmconversations.llm.LLMClient}.
+ */
+public interface LLMProvider {
+
+    /**
+     * @return Identifier used in the model_routes and default_provider settings
+     */
+    String getId();
+
+    /**
+     * @return Features this provider supports
+     */
+    ProviderCapabilities getCapabilities();
+
+    /**
+     * Whether the provider has everything it needs (such as an API key) to send requests
+     */
+    boolean isConfigured();
+
+    /**
+     * Build the request body for a chat request
+     * The body is also used as the response cache key, so it must not depend on anything
+     * that varies between identical requests.
+     * @param model Model identifier
+     * @param systemPrompt System prompt for the conversation
+     * @param history Conversation messages
+     * @param userMessage Extra user message appended after the history, or null
+     * @return The request body
+     */
+    JsonObject buildRequestBody(String model, SystemPrompt systemPrompt, List<ChatMessage> history, String userMessage);
+
+    /**
+     * Send one attempt of a request
+     * @param body Body from {@link #buildRequestBody}
+     * @param onDelta Called with the full text received so far while streaming, or null to not stream
+     * @return Future completed with the response, or exceptionally with an
+     *         {@link com.thereallemon.llmconversations.llm.LLMRequestException} or other IOException
+     */
+    CompletableFuture<ProviderResponse> send(JsonObject body, Consumer<String> onDelta);
+}
@@ -0,0 +1,68 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.thereallemon.llmconversations.llm.TokenEstimator;
+import com.thereallemon.llmconversations.llm.TokenUsage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * In-process provider that answers without any network traffic
+ * Replies are deterministic (the same request always gets the same reply), which makes
+ * it useful for trying out the mod offline and for reproducible load tests.
+ */
+public class MockProvider extends OpenAICompatibleProvider {
+    public static final String ID = "mock";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return new ProviderCapabilities(true, false, false);
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<ProviderResponse> send(JsonObject body, Consumer<String> onDelta) {
+        String reply = "You said: \"" + lastUserMessage(body) + "\"";
+
+        // Stream word by word, like a real provider would
+        if (onDelta != null) {
+            int end = reply.indexOf(' ');
+            while (end >= 0) {
+                onDelta.accept(reply.substring(0, end));
+                end = reply.indexOf(' ', end + 1);
+            }
+            onDelta.accept(reply);
+        }
+
+        int promptTokens = TokenEstimator.estimate(gson.toJson(body.get("messages")));
+        TokenUsage usage = new TokenUsage(promptTokens, TokenEstimator.estimate(reply), 0, 0, 0);
+        return CompletableFuture.completedFuture(new ProviderResponse(reply, usage));
+    }
+
+    /**
+     * Find the content of the last user message in a request body
+     */
+    private static String lastUserMessage(JsonObject body) {
+        JsonArray messages = body.getAsJsonArray("messages");
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            JsonObject message = messages.get(i).getAsJsonObject();
+            JsonElement content = message.get("content");
+            if ("user".equals(message.get("role").getAsString()) && content.isJsonPrimitive()) {
+                return content.getAsString();
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,317 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.llm.ChatMessage;
+import com.thereallemon.llmconversations.llm.HttpTransport;
+import com.thereallemon.llmconversations.llm.LLMRequestException;
+import com.thereallemon.llmconversations.llm.RetryPolicy;
+import com.thereallemon.llmconversations.llm.SystemPrompt;
+import com.thereallemon.llmconversations.llm.TokenUsage;
+import com.thereallemon.llmconversations.util.DebugLogger;
+import okhttp3.*;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Provider for any server speaking the OpenAI chat completions API, such as a local
+ * llama.cpp or Ollama server. The base URL and optional API key come from the config.
+ */
+public class OpenAICompatibleProvider implements LLMProvider {
+    public static final String ID = "openai_compatible";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    protected final Gson gson = new Gson();
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        // Local servers cache prompt prefixes on their own but don't take explicit breakpoints
+        return new ProviderCapabilities(true, false, false);
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return !getBaseUrl().isEmpty();
+    }
+
+    /**
+     * @return Base URL of the API, without the /chat/completions path
+     */
+    protected String getBaseUrl() {
+        return LLMConfig.CLIENT.openaiCompatibleBaseUrl.get().trim();
+    }
+
+    /**
+     * @return API key sent as a bearer token, or an empty string to send none
+     */
+    protected String getApiKey() {
+        return LLMConfig.CLIENT.openaiCompatibleApiKey.get();
+    }
+
+    /**
+     * Add provider-specific headers
+     */
+    protected void addHeaders(Request.Builder builder) {
+        String apiKey = getApiKey();
+        if (!apiKey.isEmpty()) {
+            builder.addHeader("Authorization", "Bearer " + apiKey);
+        }
+    }
+
+    /**
+     * Whether the stable system prompt should be marked as a prompt cache breakpoint for a model
+     */
+    protected boolean useCacheBreakpoint(String model) {
+        return false;
+    }
+
+    /**
+     * Add provider-specific fields to the request body
+     */
+    protected void addExtraFields(JsonObject request) {
+    }
+
+    /**
+     * Build the JSON request body for the API call
+     * Message order is: stable system prompt, earlier history, volatile context, latest user
+     * message. Everything before the volatile context stays byte-identical from turn to turn,
+     * which is what provider-side prefix caching needs.
+     */
+    @Override
+    public JsonObject buildRequestBody(
+            String model,
+            SystemPrompt systemPrompt,
+            List<ChatMessage> history,
+            String userMessage) {
+        
+        JsonObject request = new JsonObject();
+        request.addProperty("model", model);
+        
+        JsonArray messages = new JsonArray();
+        
+        // Add stable system prompt, marked as a cache breakpoint where the model needs it
+        messages.add(buildSystemMessage(systemPrompt.stablePrefix(),
+            systemPrompt.hasVolatileSuffix() && useCacheBreakpoint(model)));
+        
+        // The volatile context goes right before the latest user message
+        int volatileIndex = -1;
+        if (systemPrompt.hasVolatileSuffix()) {
+            if (userMessage != null) {
+                volatileIndex = history.size();
+            } else if (!history.isEmpty() && "user".equals(history.get(history.size() - 1).role)) {
+                volatileIndex = history.size() - 1;
+            } else {
+                volatileIndex = history.size();
+            }
+        }
+        
+        // Add conversation history
+        for (int i = 0; i < history.size(); i++) {
+            if (i == volatileIndex) {
+                messages.add(buildSystemMessage(systemPrompt.volatileSuffix(), false));
+            }
+            ChatMessage msg = history.get(i);
+            JsonObject historyMsg = new JsonObject();
+            historyMsg.addProperty("role", msg.role);
+            historyMsg.addProperty("content", msg.content);
+            messages.add(historyMsg);
+        }
+        if (volatileIndex == history.size()) {
+            messages.add(buildSystemMessage(systemPrompt.volatileSuffix(), false));
+        }
+        
+        // Add current user message only if provided (for legacy API)
+        if (userMessage != null) {
+            JsonObject userMsg = new JsonObject();
+            userMsg.addProperty("role", "user");
+            userMsg.addProperty("content", userMessage);
+            messages.add(userMsg);
+        }
+
+        request.add("messages", messages);
+        
+        // Add config from settings
+        request.addProperty("max_tokens", 
+            LLMConfig.CLIENT.maxTokens.get());
+        request.addProperty("temperature", 
+            LLMConfig.CLIENT.temperature.get());
+
+        addExtraFields(request);
+        return request;
+    }
+
+    /**
+     * Build a system message, optionally marked as a prompt cache breakpoint
+     */
+    private static JsonObject buildSystemMessage(String content, boolean cacheBreakpoint) {
+        JsonObject systemMsg = new JsonObject();
+        systemMsg.addProperty("role", "system");
+        if (cacheBreakpoint) {
+            // Explicit breakpoints require the content-parts form
+            JsonObject part = new JsonObject();
+            part.addProperty("type", "text");
+            part.addProperty("text", content);
+            JsonObject cacheControl = new JsonObject();
+            cacheControl.addProperty("type", "ephemeral");
+            part.add("cache_control", cacheControl);
+            JsonArray parts = new JsonArray();
+            parts.add(part);
+            systemMsg.add("content", parts);
+        } else {
+            systemMsg.addProperty("content", content);
+        }
+        return systemMsg;
+    }
+
+    @Override
+    public CompletableFuture<ProviderResponse> send(JsonObject body, Consumer<String> onDelta) {
+        if (onDelta != null) {
+            body = body.deepCopy();
+            body.addProperty("stream", true);
+            // Ask for token usage in the final chunk
+            JsonObject streamOptions = new JsonObject();
+            streamOptions.addProperty("include_usage", true);
+            body.add("stream_options", streamOptions);
+        }
+        String json = gson.toJson(body);
+        if (DebugLogger.isDebugEnabled()) {
+            DebugLogger.debug("Request Body: {}", json);
+        }
+
+        Request.Builder builder = new Request.Builder()
+            .url(getBaseUrl() + "/chat/completions")
+            .post(RequestBody.create(json, JSON));
+        addHeaders(builder);
+
+        CompletableFuture<ProviderResponse> result = new CompletableFuture<>();
+        DebugLogger.debug("Sending request to {}...", getId());
+
+        HttpTransport.client().newCall(builder.build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        String errorBody = response.body() != null ? response.body().string() : "No error details";
+                        DebugLogger.error("API Error Response: " + errorBody);
+                        throw LLMRequestException.forStatus(response.code(),
+                            "API Error: " + response.code() + " - " + response.message() + " | " + errorBody,
+                            RetryPolicy.parseRetryAfter(response.header("Retry-After")));
+                    }
+
+                    if (onDelta != null) {
+                        result.complete(readStream(response.body().source(), onDelta));
+                    } else {
+                        String responseBody = response.body().string();
+                        if (DebugLogger.isDebugEnabled()) {
+                            DebugLogger.debug("Raw API Response: {}", responseBody);
+                        }
+                        result.complete(parseResponse(responseBody));
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Read a server-sent event stream, reporting partial text as content deltas arrive
+     * @return The complete assistant message and usage (sent in the final chunk)
+     */
+    private ProviderResponse readStream(BufferedSource source, Consumer<String> onDelta) throws IOException {
+        StringBuilder content = new StringBuilder();
+        TokenUsage usage = null;
+
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            // Skip blank event separators and comments such as ": OPENROUTER PROCESSING"
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+
+            JsonObject chunk = gson.fromJson(data, JsonObject.class);
+            if (chunk.has("error")) {
+                throw toRequestException(chunk.get("error").getAsJsonObject());
+            }
+            if (chunk.has("usage") && chunk.get("usage").isJsonObject()) {
+                usage = TokenUsage.parse(chunk.getAsJsonObject("usage"));
+            }
+
+            JsonArray choices = chunk.getAsJsonArray("choices");
+            if (choices == null || choices.isEmpty()) {
+                continue;
+            }
+
+            JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+            if (delta != null && delta.has("content") && !delta.get("content").isJsonNull()) {
+                String piece = delta.get("content").getAsString();
+                if (!piece.isEmpty()) {
+                    content.append(piece);
+                    onDelta.accept(content.toString());
+                }
+            }
+        }
+
+        if (DebugLogger.isDebugEnabled()) {
+            DebugLogger.debug("Streamed API Response: {}", content);
+        }
+        return new ProviderResponse(content.toString(), usage);
+    }
+    
+    /**
+     * Parse the API response and extract the assistant's message
+     */
+    private ProviderResponse parseResponse(String responseBody) throws LLMRequestException {
+        JsonObject response = gson.fromJson(responseBody, JsonObject.class);
+        
+        if (response.has("error")) {
+            throw toRequestException(response.get("error").getAsJsonObject());
+        }
+        
+        String content = response
+            .getAsJsonArray("choices")
+            .get(0).getAsJsonObject()
+            .getAsJsonObject("message")
+            .get("content").getAsString();
+        TokenUsage usage = response.has("usage") && response.get("usage").isJsonObject() ?
+            TokenUsage.parse(response.getAsJsonObject("usage")) : null;
+        return new ProviderResponse(content, usage);
+    }
+    
+    /**
+     * Convert an error object returned in a response body, classifying it by its code
+     */
+    private static LLMRequestException toRequestException(JsonObject error) {
+        String message = error.has("message") ?
+            error.get("message").getAsString() : "Unknown error";
+        int code = -1;
+        if (error.has("code") && error.get("code").isJsonPrimitive() && error.get("code").getAsJsonPrimitive().isNumber()) {
+            code = error.get("code").getAsInt();
+        }
+        // Errors without a numeric code come from the upstream model mid-response and are worth retrying
+        boolean retryable = code < 0 || RetryPolicy.isRetryableStatus(code);
+        return new LLMRequestException("API returned error: " + message, code, retryable, -1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.google.gson.JsonObject;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import okhttp3.Request;
+
+/**
+ * Provider for the OpenRouter API
+ */
+public class OpenRouterProvider extends OpenAICompatibleProvider {
+    public static final String ID = "openrouter";
+    private static final String BASE_URL = "https://openrouter.ai/api/v1";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return new ProviderCapabilities(true, true, true);
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return !getApiKey().isEmpty();
+    }
+
+    @Override
+    protected String getBaseUrl() {
+        return BASE_URL;
+    }
+
+    @Override
+    protected String getApiKey() {
+        return LLMConfig.CLIENT.apiKey.get();
+    }
+
+    @Override
+    protected void addHeaders(Request.Builder builder) {
+        builder.addHeader("Authorization", "Bearer " + getApiKey())
+            .addHeader("HTTP-Referer", "https://minecraft-minecolonies-llm")
+            .addHeader("X-Title", "Minecolonies LLM Conversations");
+    }
+
+    /**
+     * Whether a model family needs explicit cache_control breakpoints.
+     * OpenAI, DeepSeek and similar models cache prefixes automatically and need no markers.
+     */
+    @Override
+    protected boolean useCacheBreakpoint(String model) {
+        return model.startsWith("anthropic/") || model.startsWith("google/gemini");
+    }
+
+    @Override
+    protected void addExtraFields(JsonObject request) {
+        JsonObject extra_body = new JsonObject();
+        JsonObject reasoning = new JsonObject();
+        reasoning.addProperty("max_tokens", LLMConfig.CLIENT.maxTokens.get() / 2);
+        extra_body.add("reasoning", reasoning);
+        request.add("extra_body", extra_body);
+
+        // Ask OpenRouter to report token usage, including cached prompt tokens
+        JsonObject usage = new JsonObject();
+        usage.addProperty("include", true);
+        request.add("usage", usage);
+    }
+}
@@ -0,0 +1,10 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+/**
+ * Features an LLM provider supports
+ * @param streaming Responses can be streamed token by token
+ * @param tools Tool (function) calling is available
+ * @param promptCaching Explicit prompt cache breakpoints are honoured
+ */
+public record ProviderCapabilities(boolean streaming, boolean tools, boolean promptCaching) {
+}
@@ -0,0 +1,81 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Knows the available providers and which one each model is routed to
+ * Routes come from the model_routes setting ("model=provider" pairs); models without a
+ * route use default_provider.
+ */
+public class ProviderRegistry {
+    private static final Map<String, LLMProvider> PROVIDERS = new LinkedHashMap<>();
+
+    static {
+        register(new OpenRouterProvider());
+        register(new OpenAICompatibleProvider());
+        register(new MockProvider());
+    }
+
+    // Parsed model_routes, re-parsed when the setting changes
+    private static String parsedRoutesSource = null;
+    private static Map<String, String> parsedRoutes = Map.of();
+
+    private static void register(LLMProvider provider) {
+        PROVIDERS.put(provider.getId(), provider);
+    }
+
+    /**
+     * Get the provider a model is routed to
+     * Unknown provider ids fall back to OpenRouter.
+     * @param model Model identifier
+     * @return The provider to send the model's requests to
+     */
+    public static LLMProvider forModel(String model) {
+        String id = getRoutes().getOrDefault(model, LLMConfig.CLIENT.defaultProvider.get().trim());
+        LLMProvider provider = PROVIDERS.get(id);
+        if (provider == null) {
+            DebugLogger.error("Unknown LLM provider '" + id + "' for model " + model + ", using " + OpenRouterProvider.ID);
+            return PROVIDERS.get(OpenRouterProvider.ID);
+        }
+        return provider;
+    }
+
+    /**
+     * @param id Provider identifier
+     * @return The provider, or null if there is none with that id
+     */
+    public static LLMProvider get(String id) {
+        return PROVIDERS.get(id);
+    }
+
+    /**
+     * @return Identifiers of all registered providers
+     */
+    public static Set<String> getProviderIds() {
+        return Collections.unmodifiableSet(PROVIDERS.keySet());
+    }
+
+    private static synchronized Map<String, String> getRoutes() {
+        String source = LLMConfig.CLIENT.modelRoutes.get();
+        if (!source.equals(parsedRoutesSource)) {
+            Map<String, String> routes = new HashMap<>();
+            for (String entry : source.split(",")) {
+                int separator = entry.lastIndexOf('=');
+                if (separator <= 0) {
+                    continue;
+                }
+                routes.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+            parsedRoutes = routes;
+            parsedRoutesSource = source;
+        }
+        return parsedRoutes;
+    }
+}
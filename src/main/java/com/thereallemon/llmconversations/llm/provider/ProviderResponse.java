@@ -0,0 +1,11 @@
+package com.thereallemon.llmconversations.llm.provider;
+
+import com.thereallemon.llmconversations.llm.TokenUsage;
+
+/**
+ * Assistant message and reported usage of a completed response
+ * @param content The assistant's message
+ * @param usage Token usage, or null if the provider didn't report it
+ */
+public record ProviderResponse(String content, TokenUsage usage) {
+}
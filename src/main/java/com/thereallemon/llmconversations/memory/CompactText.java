@@ -0,0 +1,97 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact in-memory forms of memory summaries
+ * Summaries repeat heavily: the same fallback lines, migrated copies, and stock phrases like
+ * "talked about" or "asked about". Whole summaries are interned so identical ones share one
+ * String, and older ones can be stored deflated against a preset dictionary of those phrases,
+ * which is what makes deflating text this short worthwhile. Compressed forms only live in memory;
+ * files and journals always hold plain text, so the dictionary can change freely.
+ */
+final class CompactText {
+    // Phrases common in summaries; zlib favours matches near the end, so the most frequent come last
+    private static final byte[] DICTIONARY = (
+        "colony town hall builder's hut warehouse farm bakery mine guard tower food bread wheat " +
+        "they would be happy to help. The citizen agreed to asked them to promised to bring " +
+        "mentioned that they were worried about shared their thoughts on complained about " +
+        "The player and the citizen discussed The conversation was about The player asked about " +
+        "talked about their work and the colony. They talked about ")
+        .getBytes(StandardCharsets.UTF_8);
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private CompactText() {
+    }
+
+    /**
+     * @param text A summary
+     * @return The shared instance of an equal summary
+     */
+    static String intern(String text) {
+        return INTERNER.intern(text);
+    }
+
+    /**
+     * Compress a summary if that makes it smaller
+     * @param text A summary
+     * @return The deflated form, or the text itself if compressing doesn't pay off
+     */
+    static Object compress(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(utf8);
+        deflater.finish();
+
+        // Layout: 4-byte UTF-8 length, then the raw deflate stream
+        byte[] buffer = new byte[4 + utf8.length + 16];
+        int length = 4 + deflater.deflate(buffer, 4, buffer.length - 4);
+        if (!deflater.finished() || length >= text.length()) {
+            return text; // Latin-1 strings already take one byte per char, so it has to beat that
+        }
+
+        buffer[0] = (byte) (utf8.length >>> 24);
+        buffer[1] = (byte) (utf8.length >>> 16);
+        buffer[2] = (byte) (utf8.length >>> 8);
+        buffer[3] = (byte) utf8.length;
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * @param stored A summary as returned by {@link #compress(String)}, or a plain String
+     * @return The summary text
+     */
+    static String expand(Object stored) {
+        if (stored instanceof String text) {
+            return text;
+        }
+
+        byte[] data = (byte[]) stored;
+        int utf8Length = (data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF);
+        byte[] utf8 = new byte[utf8Length];
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY);
+        inflater.setInput(data, 4, data.length - 4);
+        try {
+            inflater.inflate(utf8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed memory summary", e);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -1,33 +1,54 @@
 package com.thereallemon.llmconversations.memory;
 
 import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
 import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.state.CitizenRef;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
 
 /**
- * Stores conversation history and summaries for citizens
+ * Stores conversation summaries of a citizen with one player, or the citizen's shared public memories
  */
 public class ConversationMemory {
     private static final String NBT_KEY = "llmconversations_memory";
     private static final String NBT_SUMMARIES = "summaries";
+    private static final String NBT_LAST_UPDATED = "lastUpdated";
     
-    // Runtime memory cache: maps citizen ID to their conversation memory
-    // This persists during a game session but is lost on server restart
-    private static final Map<Integer, ConversationMemory> MEMORY_CACHE = new HashMap<>();
+    // Newest entries stay plain; older ones may be stored compressed
+    private static final int RECENT_ENTRIES = 3;
+    private static final Object[] NO_SLOTS = new Object[0];
 
-    private final List<String> conversationSummaries;
+    // Ring buffer of summaries, most recent first: entry i is at slots[(head + i) % slots.length]
+    // Each slot holds a String, or a byte[] from CompactText when compression is enabled
+    private Object[] slots = NO_SLOTS;
+    private int head = 0;
+    private int count = 0;
+
+    // Relevance vectors parallel to slots, computed on first search (null until then)
+    private SummaryVector[] vectors;
+
+    private final List<String> summariesView = new SummariesView();
+
+    // When a summary was last added (epoch millis)
+    private long lastUpdated = 0;
+
+    // Changes not yet written to the colony's journal
+    private final List<MemoryJournal.Change> pendingChanges = new ArrayList<>();
     
     public ConversationMemory() {
-        this.conversationSummaries = new ArrayList<>();
     }
     
     /**
@@ -35,28 +56,233 @@ public class ConversationMemory {
      * @param summary Summary of the conversation
      */
     public void addSummary(String summary) {
-        conversationSummaries.add(0, summary); // Add to front (most recent first)
-        
-        // Keep only recent summaries based on config
-        int maxSummaries = LLMConfig.CLIENT.maxConversationHistoryLength.get();
-        while (conversationSummaries.size() > maxSummaries) {
-            conversationSummaries.remove(conversationSummaries.size() - 1);
+        addSummary(summary, LLMConfig.CLIENT.maxConversationHistoryLength.get());
+    }
+
+    /**
+     * Add a conversation summary to memory
+     * @param summary Summary of the conversation
+     * @param maxSummaries Number of summaries to keep
+     */
+    public void addSummary(String summary, int maxSummaries) {
+        long time = System.currentTimeMillis();
+        touch(time);
+
+        // Keep only recent summaries, making room before adding
+        while (count > 0 && count >= maxSummaries) {
+            applyRemoveOldest();
+            pendingChanges.add(MemoryJournal.Change.removedOldest());
+        }
+
+        applyAdd(summary);
+        pendingChanges.add(MemoryJournal.Change.added(summary, time));
+
+        if (count > maxSummaries) { // Only when remembering nothing at all
+            applyRemoveOldest();
+            pendingChanges.add(MemoryJournal.Change.removedOldest());
         }
     }
     
     /**
      * Get all conversation summaries
-     * @return List of summaries (most recent first)
+     * @return Read-only live view of the summaries (most recent first)
      */
     public List<String> getSummaries() {
-        return new ArrayList<>(conversationSummaries);
+        return summariesView;
+    }
+
+    /**
+     * @return Number of summaries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return When a summary was last added (epoch millis), or 0 if never
+     */
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    void touch(long time) {
+        lastUpdated = Math.max(lastUpdated, time);
     }
     
     /**
      * Clear all conversation memory
      */
     public void clearMemory() {
-        conversationSummaries.clear();
+        applyClear();
+        pendingChanges.add(MemoryJournal.Change.cleared());
+    }
+
+    void applyAdd(String summary) {
+        if (count == slots.length) {
+            grow(count + 1);
+        }
+        head = (head - 1 + slots.length) % slots.length;
+        slots[head] = CompactText.intern(summary); // Add to front (most recent first)
+        if (vectors != null) {
+            vectors[head] = null;
+        }
+        count++;
+
+        // The entry that just stopped being one of the most recent can be compacted
+        if (count > RECENT_ENTRIES && LLMConfig.CLIENT.compressOldMemories.get()) {
+            int index = (head + RECENT_ENTRIES) % slots.length;
+            if (slots[index] instanceof String text) {
+                slots[index] = CompactText.compress(text);
+            }
+        }
+    }
+
+    void applyRemoveOldest() {
+        if (count > 0) {
+            int index = (head + count - 1) % slots.length;
+            slots[index] = null;
+            if (vectors != null) {
+                vectors[index] = null;
+            }
+            count--;
+        }
+    }
+
+    void applyClear() {
+        Arrays.fill(slots, null);
+        vectors = null;
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * Resize the ring to at least the given capacity, unwrapping it to start at 0
+     */
+    private void grow(int minCapacity) {
+        int maxSummaries = LLMConfig.CLIENT.maxConversationHistoryLength.get();
+        int capacity = Math.max(minCapacity, Math.min(Math.max(4, slots.length * 2), maxSummaries));
+        Object[] resized = new Object[capacity];
+        SummaryVector[] resizedVectors = vectors != null ? new SummaryVector[capacity] : null;
+        for (int i = 0; i < count; i++) {
+            resized[i] = slots[(head + i) % slots.length];
+            if (resizedVectors != null) {
+                resizedVectors[i] = vectors[(head + i) % slots.length];
+            }
+        }
+        slots = resized;
+        vectors = resizedVectors;
+        head = 0;
+    }
+
+    /**
+     * Pick the summaries most relevant to what the player just said
+     * Summaries are ranked by TF-IDF cosine similarity to the query; ties and summaries with
+     * nothing in common fall back to recency, so without a query this is the newest ones.
+     * @param query The player's latest message, or null
+     * @param limit Maximum number of summaries
+     * @return The chosen summaries, most recent first (all of them if there are no more than limit)
+     */
+    public List<String> findRelevant(String query, int limit) {
+        if (count <= limit) {
+            return summariesView;
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        SummaryVector queryVector = query != null ? SummaryVector.of(query) : null;
+        if (queryVector == null || queryVector.isEmpty()) {
+            return summariesView.subList(0, limit);
+        }
+
+        SummaryVector[] documents = new SummaryVector[count];
+        for (int i = 0; i < count; i++) {
+            documents[i] = vectorAt(i);
+        }
+        float[] scores = SummaryVector.score(queryVector, documents);
+
+        // Keep the best `limit` indexes; on equal scores the lower (newer) index wins
+        int[] best = new int[limit];
+        int bestCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (bestCount == limit && scores[i] <= scores[best[limit - 1]]) {
+                continue;
+            }
+            int position = Math.min(bestCount, limit - 1);
+            while (position > 0 && scores[best[position - 1]] < scores[i]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = i;
+            bestCount = Math.min(bestCount + 1, limit);
+        }
+
+        // Present them in memory order
+        Arrays.sort(best);
+        List<String> result = new ArrayList<>(limit);
+        for (int index : best) {
+            result.add(summariesView.get(index));
+        }
+        return result;
+    }
+
+    private SummaryVector vectorAt(int index) {
+        if (vectors == null) {
+            vectors = new SummaryVector[slots.length];
+        }
+        int slot = (head + index) % slots.length;
+        SummaryVector vector = vectors[slot];
+        if (vector == null) {
+            vector = SummaryVector.of(CompactText.expand(slots[slot]));
+            vectors[slot] = vector;
+        }
+        return vector;
+    }
+
+    /**
+     * Take the changes made since the last call
+     * @return The changes, oldest first
+     */
+    List<MemoryJournal.Change> drainChanges() {
+        if (pendingChanges.isEmpty()) {
+            return List.of();
+        }
+        List<MemoryJournal.Change> changes = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        return changes;
+    }
+
+    boolean hasPendingChanges() {
+        return !pendingChanges.isEmpty();
+    }
+
+    /**
+     * The changes that rebuild this memory from scratch
+     * @return A clear followed by every summary, oldest first
+     */
+    List<MemoryJournal.Change> fullChanges() {
+        List<MemoryJournal.Change> changes = new ArrayList<>(count + 1);
+        changes.add(MemoryJournal.Change.cleared());
+        for (int i = count - 1; i >= 0; i--) {
+            changes.add(MemoryJournal.Change.added(summariesView.get(i), lastUpdated));
+        }
+        return changes;
+    }
+
+    /**
+     * Read-only view over the ring buffer, decompressing entries as they are read
+     */
+    private class SummariesView extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, count);
+            return CompactText.expand(slots[(head + index) % slots.length]);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
     }
     
     /**
@@ -68,11 +294,12 @@ public class ConversationMemory {
         CompoundTag nbt = new CompoundTag();
         ListTag summariesList = new ListTag();
         
-        for (String summary : conversationSummaries) {
-            summariesList.add(StringTag.valueOf(summary));
+        for (int i = 0; i < count; i++) {
+            summariesList.add(StringTag.valueOf(summariesView.get(i)));
         }
         
         nbt.put(NBT_SUMMARIES, summariesList);
+        nbt.putLong(NBT_LAST_UPDATED, lastUpdated);
         return nbt;
     }
     
@@ -82,105 +309,163 @@ public class ConversationMemory {
      * @param nbt NBT tag containing memory data
      */
     public void deserializeNBT(net.minecraft.core.HolderLookup.Provider provider, CompoundTag nbt) {
-        conversationSummaries.clear();
+        applyClear();
+        pendingChanges.clear();
+        lastUpdated = nbt.getLong(NBT_LAST_UPDATED);
         
         if (nbt.contains(NBT_SUMMARIES)) {
+            // Stored most recent first, so add from the oldest
             ListTag summariesList = nbt.getList(NBT_SUMMARIES, Tag.TAG_STRING);
-            for (int i = 0; i < summariesList.size(); i++) {
-                conversationSummaries.add(summariesList.getString(i));
+            if (slots.length < summariesList.size()) {
+                slots = new Object[summariesList.size()];
+            }
+            for (int i = summariesList.size() - 1; i >= 0; i--) {
+                applyAdd(summariesList.getString(i));
             }
         }
     }
     
     /**
-     * Get or create memory for a citizen
+     * Get or create a citizen's memory of a player (server thread only)
      * This loads from persistent SavedData, ensuring survival across game restarts
      * @param citizen The citizen to get memory for
+     * @param playerId The player, or null for the citizen's public memories
      * @return ConversationMemory instance
      */
-    public static ConversationMemory get(ICitizenData citizen) {
-        int citizenId = citizen.getId();
+    public static ConversationMemory get(ICitizenData citizen, UUID playerId) {
+        MinecraftServer server = serverOf(citizen);
+        MemoryKey key = new MemoryKey(CitizenRef.of(citizen), playerId);
+        ConversationMemory memory = MemoryCache.getInstance().get(server, key, k -> load(server, citizen, playerId));
 
-        // Check runtime cache first for performance
-        ConversationMemory memory = MEMORY_CACHE.get(citizenId);
-        if (memory != null) {
-            DebugLogger.debug("Retrieved cached memory for citizen {} ({}): {} summaries",
-                citizen.getName(), citizenId, memory.getSummaries().size());
-            return memory;
+        DebugLogger.debug("Retrieved {} memory for citizen {} ({}): {} summaries",
+            key.isPublic() ? "public" : "player", citizen.getName(), citizen.getId(), memory.size());
+        return memory;
+    }
+
+    /**
+     * Load a citizen's memory from their colony's shard
+     */
+    private static ConversationMemory load(MinecraftServer server, ICitizenData citizen, UUID playerId) {
+        int citizenId = citizen.getId();
+        if (server == null) {
+            // Shouldn't happen on server, but create empty if it does
+            DebugLogger.debug("Server not available for citizen {} ({}), creating empty memory",
+                citizen.getName(), citizenId);
+            return new ConversationMemory();
         }
 
-        // Not in cache - load from persistent storage
         try {
-            // Get the server from the colony
-            var server = citizen.getColony().getWorld().getServer();
-            if (server != null) {
-                MemorySavedData savedData = MemorySavedData.get(server);
-                memory = savedData.getMemory(citizenId);
-
-                DebugLogger.debug("Loaded memory from SavedData for citizen {} ({}): {} summaries",
-                    citizen.getName(), citizenId, memory.getSummaries().size());
-            } else {
-                // Shouldn't happen on server, but create empty if it does
-                DebugLogger.debug("Server not available for citizen {} ({}), creating empty memory",
-                    citizen.getName(), citizenId);
-                memory = new ConversationMemory();
-            }
+            MemoryShard shard = MemoryShard.get(server, citizen.getColony());
+            ConversationMemory memory = shard.getMemory(citizenId, playerId);
+
+            DebugLogger.debug("Loaded memory from colony shard for citizen {} ({}): {} summaries",
+                citizen.getName(), citizenId, memory.size());
+            return memory;
         } catch (Exception e) {
             DebugLogger.debug("Failed to load memory for citizen {} ({}): {}, creating new",
                 citizen.getName(), citizenId, e.getMessage());
-            memory = new ConversationMemory();
+            return new ConversationMemory();
         }
-
-        // Store in cache for faster access
-        MEMORY_CACHE.put(citizenId, memory);
-        return memory;
     }
     
     /**
-     * Save memory to citizen's data
+     * Save a citizen's memory of a player (server thread only)
      * Persists to SavedData for survival across game restarts
      * @param citizen The citizen to save memory for
+     * @param playerId The player, or null for the citizen's public memories
      * @param memory The memory to save
      */
-    public static void save(ICitizenData citizen, ConversationMemory memory) {
+    public static void save(ICitizenData citizen, UUID playerId, ConversationMemory memory) {
         int citizenId = citizen.getId();
+        MinecraftServer server = serverOf(citizen);
+        MemoryKey key = new MemoryKey(CitizenRef.of(citizen), playerId);
 
-        // Update runtime cache
-        MEMORY_CACHE.put(citizenId, memory);
+        if (server == null) {
+            // Update runtime cache only
+            MemoryCache.getInstance().put(null, key, memory);
+            DebugLogger.debug("Server not available for citizen {} ({}), memory only cached",
+                citizen.getName(), citizenId);
+            return;
+        }
 
+        // Before touching the shard, and outside the try so misuse isn't just logged
+        MemoryCache.checkThread(server);
         try {
-            // Get the server and save to persistent storage
-            var server = citizen.getColony().getWorld().getServer();
-            if (server != null) {
-                MemorySavedData savedData = MemorySavedData.get(server);
-                savedData.saveMemory(citizenId, memory);
-
-                DebugLogger.debug("Saved memory to SavedData for citizen {} ({}): {} summaries",
-                    citizen.getName(), citizenId, memory.getSummaries().size());
-            } else {
-                DebugLogger.debug("Server not available for citizen {} ({}), memory only cached",
-                    citizen.getName(), citizenId);
+            // Save to persistent storage first, so an eviction from the cache finds it there
+            MemoryShard shard = MemoryShard.get(server, citizen.getColony());
+            List<UUID> forgotten = shard.saveMemory(citizenId, playerId, memory);
+            MemoryCache cache = MemoryCache.getInstance();
+            cache.put(server, key, memory);
+
+            // Players forgotten to make room must not be served from the cache either
+            // (invalidated here, outside the shard's lock, as the cache locks before the shard)
+            for (UUID forgottenId : forgotten) {
+                cache.invalidate(new MemoryKey(key.citizen(), forgottenId));
             }
+
+            DebugLogger.debug("Saved memory to colony shard for citizen {} ({}): {} summaries",
+                citizen.getName(), citizenId, memory.size());
         } catch (Exception e) {
             DebugLogger.debug("Failed to save memory for citizen {} ({}): {}",
                 citizen.getName(), citizenId, e.getMessage());
         }
     }
+
+    /**
+     * Remember a conversation: add its summary to the citizen's memory of the player and,
+     * if enabled, to the citizen's public memories (server thread only)
+     * @param citizen The citizen
+     * @param playerId The player
+     * @param playerName The player's name, used in the public memory
+     * @param summary Summary of the conversation
+     */
+    public static void remember(ICitizenData citizen, UUID playerId, String playerName, String summary) {
+        ConversationMemory memory = get(citizen, playerId);
+        memory.addSummary(summary);
+        save(citizen, playerId, memory);
+
+        int publicLength = LLMConfig.CLIENT.publicMemoryLength.get();
+        if (publicLength > 0) {
+            ConversationMemory publicMemory = get(citizen, null);
+            publicMemory.addSummary(publicPrefix(playerName) + summary, publicLength);
+            save(citizen, null, publicMemory);
+        }
+    }
+
+    /**
+     * Prefix of public memories about conversations with a player
+     * @param playerName The player's name
+     * @return The prefix
+     */
+    public static String publicPrefix(String playerName) {
+        return "With " + playerName + ": ";
+    }
+
+    /**
+     * @return The server a citizen lives on, or null if unavailable
+     */
+    private static MinecraftServer serverOf(ICitizenData citizen) {
+        IColony colony = citizen.getColony();
+        if (colony == null || colony.getWorld() == null) {
+            return null;
+        }
+        return colony.getWorld().getServer();
+    }
     
     /**
      * Get a summary of recent conversations for context
      * @return A formatted string of recent conversation topics
      */
     public String getRecentContext() {
-        if (conversationSummaries.isEmpty()) {
+        if (count == 0) {
             return "This is our first conversation.";
         }
         
         StringBuilder context = new StringBuilder("Recent conversations: ");
-        int count = Math.min(3, conversationSummaries.size());
-        for (int i = 0; i < count; i++) {
+        int recent = Math.min(RECENT_ENTRIES, count);
+        for (int i = 0; i < recent; i++) {
             if (i > 0) context.append("; ");
-            context.append(conversationSummaries.get(i));
+            context.append(summariesView.get(i));
         }
         
         return context.toString();
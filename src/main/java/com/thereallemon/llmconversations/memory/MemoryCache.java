@@ -0,0 +1,193 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of decoded citizen memories for the running server, per citizen and player
+ * Bounded in size with LRU eviction, and entries not used for a configurable time are dropped,
+ * so heap use follows the citizens people are actually talking to. Evicted memories are handed
+ * back to their {@link MemoryShard} in encoded form. The cache belongs to one server and is
+ * emptied when that server stops or a different one (another single-player world) uses it.
+ * <p>
+ * Only use the cache from the server thread: the memories it returns are the live, mutable
+ * instances, and loading and eviction go through the shards' vanilla SavedData storage. Work
+ * finishing on other threads (LLM responses) must hop back to the server thread first. This is
+ * checked whenever a server is known.
+ */
+public class MemoryCache {
+    private static final MemoryCache INSTANCE = new MemoryCache();
+
+    // Access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<MemoryKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Server the cached memories belong to (null when running outside the game, e.g. benchmarks)
+    private MinecraftServer server;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private MemoryCache() {
+    }
+
+    /**
+     * Get the shared cache
+     * @return The cache instance
+     */
+    public static MemoryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Look up a memory, loading it on a miss (server thread only)
+     * @param server The server the citizen lives on
+     * @param key Whose memory
+     * @param loader Loads the memory on a miss
+     * @return The memory, owned by the server thread
+     */
+    public synchronized ConversationMemory get(MinecraftServer server, MemoryKey key,
+                                               Function<MemoryKey, ConversationMemory> loader) {
+        checkThread(server);
+        long now = System.currentTimeMillis();
+        scopeTo(server);
+        expireIdle(now);
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = now;
+            hits.incrementAndGet();
+            return entry.memory;
+        }
+
+        misses.incrementAndGet();
+        ConversationMemory memory = loader.apply(key);
+        entries.put(key, new Entry(memory, now));
+        trimToSize();
+        return memory;
+    }
+
+    /**
+     * Store a memory (server thread only)
+     * @param server The server the citizen lives on
+     * @param key Whose memory
+     * @param memory The memory
+     */
+    public synchronized void put(MinecraftServer server, MemoryKey key, ConversationMemory memory) {
+        checkThread(server);
+        scopeTo(server);
+        entries.put(key, new Entry(memory, System.currentTimeMillis()));
+        trimToSize();
+    }
+
+    /**
+     * Drop an entry whose storage was already removed, without handing it back to the shard
+     * @param key Whose memory
+     */
+    public synchronized void invalidate(MemoryKey key) {
+        checkThread(server);
+        entries.remove(key);
+    }
+
+    /**
+     * Remove all entries (on server stop)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        server = null;
+    }
+
+    /**
+     * Fail fast when called off the server thread (no check without a server, e.g. in benchmarks)
+     */
+    static void checkThread(MinecraftServer server) {
+        if (server != null && !server.isSameThread()) {
+            throw new IllegalStateException("Memory cache used from " + Thread.currentThread().getName()
+                + ", not the server thread");
+        }
+    }
+
+    /**
+     * Drop everything cached for a different server
+     */
+    private void scopeTo(MinecraftServer newServer) {
+        if (server != newServer) {
+            if (!entries.isEmpty()) {
+                DebugLogger.debug("Memory cache used by a different server, dropping {} entries", entries.size());
+                entries.clear();
+            }
+            server = newServer;
+        }
+    }
+
+    /**
+     * Evict entries not used within the idle time
+     * The map is in access order, so stop at the first entry that is still fresh.
+     */
+    private void expireIdle(long now) {
+        long idleMillis = LLMConfig.CLIENT.memoryCacheIdleMinutes.get() * 60_000L;
+        Iterator<Map.Entry<MemoryKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<MemoryKey, Entry> eldest = iterator.next();
+            if (now - eldest.getValue().lastAccess < idleMillis) {
+                break;
+            }
+            iterator.remove();
+            release(eldest.getKey(), eldest.getValue().memory);
+        }
+    }
+
+    private void trimToSize() {
+        int maxEntries = LLMConfig.CLIENT.memoryCacheMaxEntries.get();
+        Iterator<Map.Entry<MemoryKey, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<MemoryKey, Entry> eldest = iterator.next();
+            iterator.remove();
+            release(eldest.getKey(), eldest.getValue().memory);
+        }
+    }
+
+    /**
+     * Let the shard keep only the encoded form of an evicted memory
+     */
+    private void release(MemoryKey key, ConversationMemory memory) {
+        evictions.incrementAndGet();
+        if (server != null) {
+            MemoryShard.get(server, key.citizen().dimension(), key.citizen().colonyId())
+                .release(key.citizen().citizenId(), key.playerId(), memory);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static class Entry {
+        final ConversationMemory memory;
+        long lastAccess;
+
+        Entry(ConversationMemory memory, long lastAccess) {
+            this.memory = memory;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
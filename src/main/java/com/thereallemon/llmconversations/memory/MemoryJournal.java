@@ -0,0 +1,258 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of memory changes for one colony
+ * Changes are written as small records by a background thread, so adding a summary costs a few
+ * bytes of IO instead of re-serializing every memory on the next world save. Each record has a
+ * sequence number; the colony's {@link MemoryShard} snapshot stores the last one it includes, so
+ * replaying only applies newer records and compaction can drop older ones.
+ */
+public class MemoryJournal {
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE_OLDEST = 2;
+    private static final byte OP_CLEAR = 3;
+    private static final int MAX_SUMMARY_BYTES = 1 << 20;
+
+    // One writer for all journals keeps each file's records in order without locking
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LLMConversations-MemoryWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+
+    // Size including writes that are still queued
+    private final AtomicLong size;
+
+    public MemoryJournal(Path path) {
+        this.path = path;
+        long existing = 0;
+        try {
+            existing = Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            DebugLogger.error("Failed to read size of memory journal {}: {}", path, e.getMessage());
+        }
+        this.size = new AtomicLong(existing);
+    }
+
+    /**
+     * A change to one citizen's memory of a player
+     * @param seq Sequence number within the colony's journal
+     * @param citizenId The citizen's ID within the colony
+     * @param playerId The player, or null for the citizen's public memories
+     * @param op The kind of change
+     * @param time When a summary was added (epoch millis), or 0
+     * @param summary The added summary, or null
+     */
+    public record Entry(long seq, int citizenId, UUID playerId, byte op, long time, String summary) {
+        /**
+         * Apply this change to a memory
+         */
+        void applyTo(ConversationMemory memory) {
+            switch (op) {
+                case OP_ADD -> {
+                    memory.applyAdd(summary);
+                    memory.touch(time);
+                }
+                case OP_REMOVE_OLDEST -> memory.applyRemoveOldest();
+                case OP_CLEAR -> memory.applyClear();
+                default -> DebugLogger.error("Unknown memory journal record type {}", op);
+            }
+        }
+    }
+
+    /**
+     * A change waiting to be journaled, as recorded by {@link ConversationMemory}
+     */
+    record Change(byte op, long time, String summary) {
+        static Change added(String summary, long time) {
+            return new Change(OP_ADD, time, summary);
+        }
+
+        static Change removedOldest() {
+            return new Change(OP_REMOVE_OLDEST, 0, null);
+        }
+
+        static Change cleared() {
+            return new Change(OP_CLEAR, 0, null);
+        }
+
+        /**
+         * The journal record of this change
+         */
+        Entry toEntry(long seq, int citizenId, UUID playerId) {
+            return new Entry(seq, citizenId, playerId, op, time, summary);
+        }
+    }
+
+    /**
+     * Queue records to be appended
+     * @param records The records, in order
+     */
+    public void append(List<Entry> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        byte[] bytes = encode(records);
+        size.addAndGet(bytes.length);
+        WRITER.execute(() -> {
+            try (OutputStream out = Files.newOutputStream(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+                out.write(bytes);
+            } catch (IOException e) {
+                DebugLogger.error("Failed to append to memory journal {}: {}", path, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Read every record newer than a sequence number
+     * Stops quietly at a truncated last record (e.g. after a crash mid-write).
+     * @param afterSeq Records with this sequence number or lower are skipped
+     * @param consumer Receives the records in order
+     * @return The highest sequence number read, or afterSeq if none
+     */
+    public long replay(long afterSeq, Consumer<Entry> consumer) {
+        long lastSeq = afterSeq;
+        if (!Files.exists(path)) {
+            return lastSeq;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                Entry record;
+                try {
+                    record = read(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (record.seq() > afterSeq) {
+                    consumer.accept(record);
+                    lastSeq = Math.max(lastSeq, record.seq());
+                }
+            }
+        } catch (IOException e) {
+            DebugLogger.error("Failed to replay memory journal {}: {}", path, e.getMessage());
+        }
+        return lastSeq;
+    }
+
+    /**
+     * Queue removal of the records a snapshot now contains
+     * Only call once the snapshot is on disk.
+     * @param upToSeq Last sequence number included in the snapshot
+     * @param onDone Run on the writer thread afterwards
+     */
+    public void compact(long upToSeq, Runnable onDone) {
+        WRITER.execute(() -> {
+            try {
+                List<Entry> kept = new ArrayList<>();
+                replay(upToSeq, kept::add);
+
+                if (kept.isEmpty()) {
+                    Files.deleteIfExists(path);
+                } else {
+                    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+                    Files.write(temp, encode(kept));
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                size.set(Files.exists(path) ? Files.size(path) : 0);
+                DebugLogger.debug("Compacted memory journal {} ({} records kept)", path.getFileName(), kept.size());
+            } catch (IOException e) {
+                DebugLogger.error("Failed to compact memory journal {}: {}", path, e.getMessage());
+            } finally {
+                onDone.run();
+            }
+        });
+    }
+
+    /**
+     * @return Journal size in bytes, including queued writes
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Wait for queued journal writes to finish (call when the server stops)
+     */
+    public static void awaitWrites() {
+        try {
+            WRITER.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            DebugLogger.error("Timed out waiting for memory journal writes: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] encode(List<Entry> records) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(buffer))) {
+            for (Entry record : records) {
+                out.writeLong(record.seq());
+                out.writeInt(record.citizenId());
+                out.writeBoolean(record.playerId() != null);
+                if (record.playerId() != null) {
+                    out.writeLong(record.playerId().getMostSignificantBits());
+                    out.writeLong(record.playerId().getLeastSignificantBits());
+                }
+                out.writeByte(record.op());
+                if (record.op() == OP_ADD) {
+                    out.writeLong(record.time());
+                    byte[] summary = record.summary().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(summary.length);
+                    out.write(summary);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode memory journal records", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Entry read(DataInputStream in) throws IOException {
+        long seq = in.readLong();
+        int citizenId = in.readInt();
+        UUID playerId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        byte op = in.readByte();
+        long time = 0;
+        String summary = null;
+        if (op == OP_ADD) {
+            time = in.readLong();
+            int length = in.readInt();
+            if (length < 0 || length > MAX_SUMMARY_BYTES) {
+                throw new EOFException("Corrupt memory journal record"); // Treat like a torn write
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            summary = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Entry(seq, citizenId, playerId, op, time, summary);
+    }
+}
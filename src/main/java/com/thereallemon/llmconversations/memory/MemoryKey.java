@@ -0,0 +1,20 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.state.CitizenRef;
+
+import java.util.UUID;
+
+/**
+ * Whose memories: a citizen's memories of one player, or the citizen's shared public memories
+ * @param citizen The citizen
+ * @param playerId The player, or null for the public tier
+ */
+public record MemoryKey(CitizenRef citizen, UUID playerId) {
+
+    /**
+     * @return True for the citizen's public memories
+     */
+    public boolean isPublic() {
+        return playerId == null;
+    }
+}
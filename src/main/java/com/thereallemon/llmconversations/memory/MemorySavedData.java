@@ -1,5 +1,7 @@
 package com.thereallemon.llmconversations.memory;
 
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IColonyManager;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
@@ -9,98 +11,80 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.storage.DimensionDataStorage;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 /**
- * SavedData for persisting conversation memories across game restarts
+ * The old single-file memory storage, keyed only by citizen ID
+ * Kept so existing worlds can be migrated into per-colony {@link MemoryShard}s.
  */
 public class MemorySavedData extends SavedData {
     private static final String DATA_NAME = "llmconversations_memories";
 
-    // Maps citizen ID to their memory data
-    private final Map<Integer, ConversationMemory> memories = new HashMap<>();
+    // Raw entries of the old file, emptied once migrated
+    private ListTag memoriesList = new ListTag();
 
     public MemorySavedData() {
         super();
     }
 
-    /**
-     * Load memory for a specific citizen
-     */
-    public ConversationMemory getMemory(int citizenId) {
-        return memories.computeIfAbsent(citizenId, k -> {
-            DebugLogger.debug("Creating new memory entry for citizen ID {}", k);
-            return new ConversationMemory();
-        });
-    }
-
-    /**
-     * Save memory for a specific citizen
-     */
-    public void saveMemory(int citizenId, ConversationMemory memory) {
-        memories.put(citizenId, memory);
-        setDirty(); // Mark as needing to be saved
-        DebugLogger.debug("Marked memory data as dirty for citizen ID {}", citizenId);
-    }
-
-    /**
-     * Serialize all memories to NBT
-     */
     @Override
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        DebugLogger.debug("Saving {} citizen memories to NBT", memories.size());
-
-        ListTag memoriesList = new ListTag();
-        for (Map.Entry<Integer, ConversationMemory> entry : memories.entrySet()) {
-            CompoundTag citizenEntry = new CompoundTag();
-            citizenEntry.putInt("citizenId", entry.getKey());
-            citizenEntry.put("memory", entry.getValue().serializeNBT(provider));
-            memoriesList.add(citizenEntry);
-        }
-
         tag.put("memories", memoriesList);
         return tag;
     }
 
-    /**
-     * Deserialize all memories from NBT
-     */
     public static MemorySavedData load(CompoundTag tag, HolderLookup.Provider provider) {
         MemorySavedData data = new MemorySavedData();
-
-        if (tag.contains("memories")) {
-            ListTag memoriesList = tag.getList("memories", Tag.TAG_COMPOUND);
-            DebugLogger.debug("Loading {} citizen memories from NBT", memoriesList.size());
-
-            for (int i = 0; i < memoriesList.size(); i++) {
-                CompoundTag citizenEntry = memoriesList.getCompound(i);
-                int citizenId = citizenEntry.getInt("citizenId");
-
-                ConversationMemory memory = new ConversationMemory();
-                memory.deserializeNBT(provider, citizenEntry.getCompound("memory"));
-
-                data.memories.put(citizenId, memory);
-                DebugLogger.debug("Loaded memory for citizen ID {}: {} summaries",
-                    citizenId, memory.getSummaries().size());
-            }
-        }
-
+        data.memoriesList = tag.getList("memories", Tag.TAG_COMPOUND);
         return data;
     }
 
     /**
-     * Get or create the SavedData instance for a server
+     * Move memories from the old file into per-colony shards
+     * Old entries didn't record a colony, so each is copied to every colony that has a citizen
+     * with that ID (they were shared between those citizens before). The old file is then emptied,
+     * so this only does work once.
+     * @param server The server, with colonies loaded
      */
-    public static MemorySavedData get(MinecraftServer server) {
+    public static void migrate(MinecraftServer server) {
         DimensionDataStorage storage = server.overworld().getDataStorage();
-        return storage.computeIfAbsent(
+        MemorySavedData legacy = storage.get(
             new SavedData.Factory<>(
                 MemorySavedData::new,
                 MemorySavedData::load
             ),
             DATA_NAME
         );
+        if (legacy == null || legacy.memoriesList.isEmpty()) {
+            return;
+        }
+
+        List<IColony> colonies = IColonyManager.getInstance().getAllColonies();
+        int copied = 0;
+        int orphaned = 0;
+
+        for (int i = 0; i < legacy.memoriesList.size(); i++) {
+            CompoundTag citizenEntry = legacy.memoriesList.getCompound(i);
+            int citizenId = citizenEntry.getInt("citizenId");
+            CompoundTag memoryTag = citizenEntry.getCompound("memory");
+
+            boolean found = false;
+            for (IColony colony : colonies) {
+                if (colony.getCitizenManager().getCivilian(citizenId) != null) {
+                    MemoryShard.get(server, colony).putRaw(citizenId, memoryTag.copy());
+                    copied++;
+                    found = true;
+                }
+            }
+            if (!found) {
+                orphaned++;
+            }
+        }
+
+        DebugLogger.log("Migrated " + legacy.memoriesList.size() + " citizen memories to per-colony storage (" +
+            copied + " copies, " + orphaned + " without a matching citizen)");
+
+        legacy.memoriesList = new ListTag();
+        legacy.setDirty();
     }
 }
-
@@ -0,0 +1,370 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.minecolonies.api.colony.IColony;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.DimensionDataStorage;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Conversation memories of one colony's citizens, kept per player plus a shared public tier per citizen
+ * Each colony is its own SavedData file, loaded the first time one of its citizens needs a memory.
+ * Entries stay as raw NBT until asked for, and untouched entries are written back without being decoded.
+ * Changes go to the colony's {@link MemoryJournal}; the file itself is a snapshot that is only
+ * rewritten when the journal has grown large enough to compact.
+ */
+public class MemoryShard extends SavedData {
+    private static final String DATA_PREFIX = "llmconversations_memories_";
+
+    // Citizen and player -> memory, for entries that have been decoded or created this session
+    private final Map<Slot, ConversationMemory> memories = new HashMap<>();
+
+    // Citizen and player -> raw memory tag, for entries not decoded yet
+    private final Map<Slot, CompoundTag> rawMemories = new HashMap<>();
+
+    private HolderLookup.Provider provider;
+
+    // Last journal sequence number assigned (or included in the loaded snapshot)
+    private long journalSeq = 0;
+    private MemoryJournal journal;
+    private volatile boolean compacting = false;
+
+    // Sequence number of the snapshot the current save is writing, or -1
+    private long pendingSnapshotSeq = -1;
+
+    public MemoryShard() {
+        super();
+    }
+
+    /**
+     * Get a citizen's memory of a player, decoding it on first access
+     * @param citizenId The citizen's ID within the colony
+     * @param playerId The player, or null for the citizen's public memories
+     * @return The memory (created empty if there is none)
+     */
+    public synchronized ConversationMemory getMemory(int citizenId, UUID playerId) {
+        Slot slot = new Slot(citizenId, playerId);
+        ConversationMemory memory = memories.get(slot);
+        if (memory != null) {
+            return memory;
+        }
+
+        memory = new ConversationMemory();
+        CompoundTag raw = rawMemories.remove(slot);
+        if (raw != null) {
+            memory.deserializeNBT(provider, raw);
+            DebugLogger.debug("Decoded memory for citizen ID {}: {} summaries", citizenId, memory.size());
+        } else {
+            DebugLogger.debug("Creating new memory entry for citizen ID {}", citizenId);
+        }
+        memories.put(slot, memory);
+        return memory;
+    }
+
+    /**
+     * Save a citizen's memory of a player
+     * @param citizenId The citizen's ID within the colony
+     * @param playerId The player, or null for the citizen's public memories
+     * @param memory The memory
+     * @return Players the citizen forgot to make room, whose cached memories are now stale
+     */
+    public synchronized List<UUID> saveMemory(int citizenId, UUID playerId, ConversationMemory memory) {
+        Slot slot = new Slot(citizenId, playerId);
+
+        // A memory object we don't hold yet replaces the stored one entirely
+        List<MemoryJournal.Change> changes;
+        if (memories.get(slot) == memory) {
+            changes = memory.drainChanges();
+        } else {
+            memory.drainChanges();
+            changes = memory.fullChanges();
+        }
+        memories.put(slot, memory);
+        rawMemories.remove(slot);
+
+        List<MemoryJournal.Entry> records = new ArrayList<>(changes.size());
+        for (MemoryJournal.Change change : changes) {
+            records.add(change.toEntry(++journalSeq, citizenId, playerId));
+        }
+        List<UUID> forgotten = playerId != null
+            ? forgetExcessPlayers(citizenId, slot, records)
+            : List.of();
+
+        if (journal == null) {
+            setDirty(); // No journal (shouldn't happen on a server), fall back to rewriting the snapshot
+            return forgotten;
+        }
+
+        journal.append(records);
+        DebugLogger.debug("Journaled {} memory changes for citizen ID {}", records.size(), citizenId);
+
+        // Fold the journal into a fresh snapshot on the next world save once it is large
+        long threshold = LLMConfig.CLIENT.journalCompactionKb.get() * 1024L;
+        if (!compacting && journal.size() > threshold) {
+            compacting = true;
+            setDirty();
+            DebugLogger.debug("Memory journal passed {} bytes, snapshot scheduled", threshold);
+        }
+        return forgotten;
+    }
+
+    /**
+     * Keep a citizen's memories of at most the configured number of players, forgetting
+     * the players talked to least recently
+     * @param citizenId The citizen's ID within the colony
+     * @param keep The slot just saved, never forgotten
+     * @param records Journal records to add the forgetting to
+     * @return The forgotten players
+     */
+    private List<UUID> forgetExcessPlayers(int citizenId, Slot keep, List<MemoryJournal.Entry> records) {
+        int maxPlayers = LLMConfig.CLIENT.maxPlayersPerCitizen.get();
+
+        List<Slot> players = new ArrayList<>();
+        Map<Slot, Long> lastUpdated = new HashMap<>();
+        for (Map.Entry<Slot, ConversationMemory> entry : memories.entrySet()) {
+            Slot slot = entry.getKey();
+            if (slot.citizenId() == citizenId && slot.playerId() != null && entry.getValue().size() > 0) {
+                players.add(slot);
+                lastUpdated.put(slot, entry.getValue().getLastUpdated());
+            }
+        }
+        for (Map.Entry<Slot, CompoundTag> entry : rawMemories.entrySet()) {
+            Slot slot = entry.getKey();
+            if (slot.citizenId() == citizenId && slot.playerId() != null) {
+                players.add(slot);
+                lastUpdated.put(slot, entry.getValue().getLong("lastUpdated"));
+            }
+        }
+        if (players.size() <= maxPlayers) {
+            return List.of();
+        }
+
+        players.remove(keep);
+        players.sort(Comparator.comparingLong(lastUpdated::get));
+        int excess = players.size() + 1 - maxPlayers;
+        List<UUID> forgotten = new ArrayList<>(excess);
+        for (Slot slot : players.subList(0, excess)) {
+            memories.remove(slot);
+            rawMemories.remove(slot);
+            records.add(MemoryJournal.Change.cleared().toEntry(++journalSeq, citizenId, slot.playerId()));
+            forgotten.add(slot.playerId());
+        }
+        DebugLogger.debug("Citizen ID {} remembers more than {} players, forgot the {} least recent",
+            citizenId, maxPlayers, excess);
+        return forgotten;
+    }
+
+    /**
+     * Drop the decoded form of a memory that is no longer in use, keeping it encoded
+     * @param citizenId The citizen's ID within the colony
+     * @param playerId The player, or null for the citizen's public memories
+     * @param memory The memory being released
+     */
+    synchronized void release(int citizenId, UUID playerId, ConversationMemory memory) {
+        Slot slot = new Slot(citizenId, playerId);
+        if (memories.get(slot) != memory || memory.hasPendingChanges()) {
+            return; // Replaced meanwhile, or changes still waiting to be journaled
+        }
+        memories.remove(slot);
+        if (memory.size() > 0) {
+            rawMemories.put(slot, memory.serializeNBT(provider));
+        }
+    }
+
+    /**
+     * Store a citizen's public memory tag without decoding it (used by migration)
+     * @param citizenId The citizen's ID within the colony
+     * @param memoryTag The serialized memory
+     */
+    synchronized void putRaw(int citizenId, CompoundTag memoryTag) {
+        Slot slot = new Slot(citizenId, null);
+        if (!memories.containsKey(slot)) {
+            rawMemories.put(slot, memoryTag);
+            setDirty();
+        }
+    }
+
+    /**
+     * Serialize the colony's memories to NBT
+     */
+    @Override
+    public synchronized CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        DebugLogger.debug("Saving memory shard: {} decoded, {} untouched", memories.size(), rawMemories.size());
+
+        ListTag memoriesList = new ListTag();
+        for (Map.Entry<Slot, ConversationMemory> entry : memories.entrySet()) {
+            entry.getValue().drainChanges(); // The snapshot includes them
+            if (entry.getValue().size() > 0) {
+                memoriesList.add(entryTag(entry.getKey(), entry.getValue().serializeNBT(provider)));
+            }
+        }
+        for (Map.Entry<Slot, CompoundTag> entry : rawMemories.entrySet()) {
+            memoriesList.add(entryTag(entry.getKey(), entry.getValue()));
+        }
+
+        tag.put("memories", memoriesList);
+        tag.putLong("journalSeq", journalSeq);
+
+        // The journal records this includes are dropped once the file is on disk, see save(File, Provider)
+        pendingSnapshotSeq = journalSeq;
+        return tag;
+    }
+
+    /**
+     * Write the snapshot file, then drop the journal records it includes
+     * Vanilla only logs a failed write, so the file is read back first: until it holds the
+     * snapshot, the journal is the only copy of those changes.
+     */
+    @Override
+    public void save(File file, HolderLookup.Provider provider) {
+        super.save(file, provider);
+
+        long snapshotSeq;
+        MemoryJournal snapshotJournal;
+        synchronized (this) {
+            snapshotSeq = pendingSnapshotSeq;
+            snapshotJournal = journal;
+            pendingSnapshotSeq = -1;
+        }
+        if (snapshotSeq < 0 || snapshotJournal == null) {
+            return; // Not dirty, or nothing journaled
+        }
+
+        if (!isSnapshotOnDisk(file, snapshotSeq)) {
+            DebugLogger.error("Memory snapshot {} was not written, keeping its journal", file.getName());
+            setDirty(); // Try again with the next save
+            return;
+        }
+        snapshotJournal.compact(snapshotSeq, () -> compacting = false);
+    }
+
+    private static boolean isSnapshotOnDisk(File file, long snapshotSeq) {
+        try {
+            CompoundTag written = NbtIo.readCompressed(file.toPath(), NbtAccounter.unlimitedHeap());
+            return written.getCompound("data").getLong("journalSeq") == snapshotSeq;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static CompoundTag entryTag(Slot slot, CompoundTag memoryTag) {
+        CompoundTag citizenEntry = new CompoundTag();
+        citizenEntry.putInt("citizenId", slot.citizenId());
+        if (slot.playerId() != null) {
+            citizenEntry.putUUID("player", slot.playerId());
+        }
+        citizenEntry.put("memory", memoryTag);
+        return citizenEntry;
+    }
+
+    /**
+     * Read the colony's memories from NBT, leaving each entry encoded until it is used
+     */
+    public static MemoryShard load(CompoundTag tag, HolderLookup.Provider provider) {
+        MemoryShard shard = new MemoryShard();
+        shard.provider = provider;
+        shard.journalSeq = tag.getLong("journalSeq");
+
+        ListTag memoriesList = tag.getList("memories", Tag.TAG_COMPOUND);
+        for (int i = 0; i < memoriesList.size(); i++) {
+            CompoundTag citizenEntry = memoriesList.getCompound(i);
+            // Entries without a player (including those from before memories were per player) are public
+            UUID playerId = citizenEntry.hasUUID("player") ? citizenEntry.getUUID("player") : null;
+            shard.rawMemories.put(new Slot(citizenEntry.getInt("citizenId"), playerId), citizenEntry.getCompound("memory"));
+        }
+
+        DebugLogger.debug("Loaded memory shard with {} memory entries", shard.rawMemories.size());
+        return shard;
+    }
+
+    /**
+     * Get or create the memory shard of a colony
+     * @param server The server
+     * @param colony The colony
+     * @return The colony's shard
+     */
+    public static MemoryShard get(MinecraftServer server, IColony colony) {
+        return get(server, colony.getDimension(), colony.getID());
+    }
+
+    /**
+     * Get or create the memory shard of a colony
+     * @param server The server
+     * @param dimension Dimension of the colony
+     * @param colonyId The colony's ID
+     * @return The colony's shard
+     */
+    public static MemoryShard get(MinecraftServer server, ResourceKey<Level> dimension, int colonyId) {
+        // All shards live in the overworld's data folder so they are found regardless of which dimensions are loaded
+        DimensionDataStorage storage = server.overworld().getDataStorage();
+        String dataName = dataName(dimension, colonyId);
+        MemoryShard shard = storage.computeIfAbsent(
+            new SavedData.Factory<>(
+                MemoryShard::new,
+                MemoryShard::load
+            ),
+            dataName
+        );
+        shard.attachJournal(server, dataName);
+        return shard;
+    }
+
+    /**
+     * Open the shard's journal and replay the changes made since its snapshot (first access only)
+     */
+    private synchronized void attachJournal(MinecraftServer server, String dataName) {
+        if (journal == null) {
+            Path path = server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(dataName + ".journal");
+            attachJournal(new MemoryJournal(path), dataName);
+        }
+    }
+
+    /**
+     * Use a journal, replaying the changes made since the snapshot
+     * @param journal The colony's journal
+     * @param dataName Name of the shard, for logging
+     */
+    synchronized void attachJournal(MemoryJournal journal, String dataName) {
+        this.journal = journal;
+
+        long snapshotSeq = journalSeq;
+        journalSeq = journal.replay(snapshotSeq, record -> record.applyTo(getMemory(record.citizenId(), record.playerId())));
+        if (journalSeq > snapshotSeq) {
+            DebugLogger.debug("Replayed {} memory journal records for {}", journalSeq - snapshotSeq, dataName);
+        }
+    }
+
+    /**
+     * File name of a colony's shard, e.g. llmconversations_memories_minecraft_overworld_3
+     */
+    static String dataName(ResourceKey<Level> dimension, int colonyId) {
+        String dimensionName = dimension.location().toString().replace(':', '_').replace('/', '_');
+        return DATA_PREFIX + dimensionName + "_" + colonyId;
+    }
+
+    /**
+     * A citizen's memories of one player, or their public memories when playerId is null
+     */
+    private record Slot(int citizenId, UUID playerId) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.thereallemon.llmconversations.memory;
+
+import java.util.Arrays;
+
+/**
+ * Bag-of-words vector of a summary for relevance ranking
+ * Words are hashed into a fixed number of buckets (the hashing trick), so no vocabulary has to be
+ * kept, and ranking weighs them by TF-IDF over the citizen's own memories. Cheap enough to compute
+ * on the server thread and small enough to keep next to each summary.
+ */
+final class SummaryVector {
+    static final int DIMENSIONS = 1024;
+    private static final int BUCKET_SHIFT = 32 - Integer.numberOfTrailingZeros(DIMENSIONS);
+    private static final int MAX_WORD_LENGTH = 32;
+
+    private static final SummaryVector EMPTY = new SummaryVector(new short[0], new byte[0]);
+
+    // Sublinear term frequency, 1 + ln(count), by count
+    private static final float[] TF_WEIGHT = new float[128];
+
+    // Hashes of words too common to say anything about relevance, sorted for binary search
+    private static final int[] STOP_WORD_HASHES = Arrays.stream((
+        "the and for are was were but not you your they them their this that with have has had " +
+        "from about what when where who how will would can could should into out its his her she him " +
+        "our all any been being did does just also then than there here some very said asked talked " +
+        "player citizen conversation")
+        .split(" ")).mapToInt(SummaryVector::hashWord).sorted().toArray();
+
+    static {
+        for (int count = 1; count < TF_WEIGHT.length; count++) {
+            TF_WEIGHT[count] = 1 + (float) Math.log(count);
+        }
+    }
+
+    // Sorted, distinct bucket indexes and how often each occurs
+    final short[] buckets;
+    final byte[] counts;
+
+    private SummaryVector(short[] buckets, byte[] counts) {
+        this.buckets = buckets;
+        this.counts = counts;
+    }
+
+    /**
+     * Vectorize a text
+     * Words are lower-cased runs of letters and digits; very short words, stop words and a
+     * trailing plural "s" are ignored so "farms" matches "farm".
+     * @param text The text
+     * @return The vector
+     */
+    static SummaryVector of(String text) {
+        int[] found = new int[16];
+        int foundCount = 0;
+
+        char[] word = new char[MAX_WORD_LENGTH];
+        int wordLength = 0;
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (wordLength < MAX_WORD_LENGTH) {
+                    word[wordLength++] = Character.toLowerCase(c);
+                }
+                continue;
+            }
+            if (wordLength >= 3) {
+                int hash = hashWord(word, wordLength);
+                if (Arrays.binarySearch(STOP_WORD_HASHES, hash) < 0) {
+                    if (foundCount == found.length) {
+                        found = Arrays.copyOf(found, foundCount * 2);
+                    }
+                    found[foundCount++] = (hash * 0x9E3779B9) >>> BUCKET_SHIFT;
+                }
+            }
+            wordLength = 0;
+        }
+
+        if (foundCount == 0) {
+            return EMPTY;
+        }
+
+        // Collapse into sorted distinct buckets with counts
+        Arrays.sort(found, 0, foundCount);
+        short[] buckets = new short[foundCount];
+        byte[] counts = new byte[foundCount];
+        int distinct = 0;
+        for (int i = 0; i < foundCount; i++) {
+            if (distinct > 0 && buckets[distinct - 1] == found[i]) {
+                if (counts[distinct - 1] < TF_WEIGHT.length - 1) {
+                    counts[distinct - 1]++;
+                }
+            } else {
+                buckets[distinct] = (short) found[i];
+                counts[distinct] = 1;
+                distinct++;
+            }
+        }
+        return new SummaryVector(Arrays.copyOf(buckets, distinct), Arrays.copyOf(counts, distinct));
+    }
+
+    boolean isEmpty() {
+        return buckets.length == 0;
+    }
+
+    /**
+     * Cosine similarity of a query to each document, with TF-IDF weights from the documents
+     * @param query The query vector
+     * @param documents The document vectors
+     * @return Similarity in [0, 1] per document
+     */
+    static float[] score(SummaryVector query, SummaryVector[] documents) {
+        // Inverse document frequency of each bucket
+        int[] documentFrequency = new int[DIMENSIONS];
+        for (SummaryVector document : documents) {
+            for (short bucket : document.buckets) {
+                documentFrequency[bucket]++;
+            }
+        }
+        float[] idf = new float[DIMENSIONS];
+        for (int bucket = 0; bucket < DIMENSIONS; bucket++) {
+            idf[bucket] = (float) Math.log((documents.length + 1.0) / (documentFrequency[bucket] + 1.0)) + 1;
+        }
+
+        // Dense query weights so each document is scored in one pass over its own buckets
+        float[] queryWeights = new float[DIMENSIONS];
+        float queryNorm = 0;
+        for (int i = 0; i < query.buckets.length; i++) {
+            int bucket = query.buckets[i];
+            float weight = TF_WEIGHT[query.counts[i]] * idf[bucket];
+            queryWeights[bucket] = weight;
+            queryNorm += weight * weight;
+        }
+        queryNorm = (float) Math.sqrt(queryNorm);
+
+        float[] scores = new float[documents.length];
+        for (int d = 0; d < documents.length; d++) {
+            SummaryVector document = documents[d];
+            float dot = 0;
+            float norm = 0;
+            for (int i = 0; i < document.buckets.length; i++) {
+                int bucket = document.buckets[i];
+                float weight = TF_WEIGHT[document.counts[i]] * idf[bucket];
+                dot += weight * queryWeights[bucket];
+                norm += weight * weight;
+            }
+            scores[d] = dot == 0 ? 0 : dot / (queryNorm * (float) Math.sqrt(norm));
+        }
+        return scores;
+    }
+
+    private static int hashWord(String word) {
+        return hashWord(word.toCharArray(), word.length());
+    }
+
+    private static int hashWord(char[] word, int length) {
+        // Drop a plural "s" (but not "ss")
+        if (length > 3 && word[length - 1] == 's' && word[length - 2] != 's') {
+            length--;
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + word[i];
+        }
+        return hash;
+    }
+}
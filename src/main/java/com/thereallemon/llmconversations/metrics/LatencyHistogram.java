@@ -0,0 +1,179 @@
+package com.thereallemon.llmconversations.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (in the style of HdrHistogram)
+ * Every power of two is split into 16 buckets, so any duration from a nanosecond up to centuries
+ * is kept within about 6% of its value in a fixed array of under 1000 slots. Recording is a few
+ * shifts and one atomic increment, cheap enough for the server thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    // Bucket bounds (in seconds) written for Prometheus
+    private static final double[] EXPORT_BOUNDS = {
+        0.0005, 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120
+    };
+    private static final String[] EXPORT_LABELS = new String[EXPORT_BOUNDS.length];
+
+    static {
+        for (int i = 0; i < EXPORT_BOUNDS.length; i++) {
+            EXPORT_LABELS[i] = BigDecimal.valueOf(EXPORT_BOUNDS[i]).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a duration
+     * @param nanos Duration in nanoseconds (negative values count as 0)
+     */
+    public void recordNanos(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Record the time since a start time
+     * @param startNanos Start time from {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return Number of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Sum of recorded durations, in milliseconds
+     */
+    public double getTotalMillis() {
+        return sumNanos.sum() / 1_000_000.0;
+    }
+
+    /**
+     * @return Longest recorded duration, in milliseconds
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return Average recorded duration, in milliseconds
+     */
+    public double getAverageMillis() {
+        long total = count.sum();
+        return total == 0 ? 0 : sumNanos.sum() / 1_000_000.0 / total;
+    }
+
+    /**
+     * Estimate a percentile
+     * @param percentile Between 0 and 100
+     * @return The duration in milliseconds that the given share of recordings didn't exceed, or 0 if none
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // The bucket's upper bound, but never beyond what was actually recorded
+                return Math.min(upperBound(i), maxNanos.get()) / 1_000_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Write the histogram's samples in Prometheus text format
+     * Buckets are cumulative; a recording falls in the first exported bound at or above its bucket's upper bound.
+     * @param out The output
+     * @param name Metric name
+     * @param labels Label pairs, e.g. type="chat", or empty
+     */
+    void writePrometheus(StringBuilder out, String name, String labels) {
+        long[] snapshot = snapshot();
+        String separator = labels.isEmpty() ? "" : ",";
+
+        int bucket = 0;
+        long cumulative = 0;
+        for (int i = 0; i < EXPORT_BOUNDS.length; i++) {
+            long boundNanos = (long) (EXPORT_BOUNDS[i] * 1_000_000_000L);
+            while (bucket < snapshot.length && upperBound(bucket) <= boundNanos) {
+                cumulative += snapshot[bucket++];
+            }
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"").append(EXPORT_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        while (bucket < snapshot.length) {
+            cumulative += snapshot[bucket++];
+        }
+        out.append(name).append("_bucket{").append(labels).append(separator)
+            .append("le=\"+Inf\"} ").append(cumulative).append('\n');
+
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Bucket of a value: values below 16 have their own bucket, larger ones share one of 16 buckets
+     * per power of two
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Smallest value above a bucket (saturating at Long.MAX_VALUE for the last one)
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        long upper = lower + (1L << shift);
+        return upper < lower ? Long.MAX_VALUE : upper;
+    }
+}
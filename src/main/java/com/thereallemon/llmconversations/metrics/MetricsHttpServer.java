@@ -0,0 +1,93 @@
+package com.thereallemon.llmconversations.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thereallemon.llmconversations.config.LLMConfig;
+import com.thereallemon.llmconversations.util.DebugLogger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional HTTP endpoint serving the metrics at /metrics in Prometheus text format
+ * Runs on its own daemon thread while a server is running, and only when a port is configured.
+ */
+public class MetricsHttpServer {
+    private static HttpServer httpServer;
+    private static ExecutorService executor;
+
+    /**
+     * Start the endpoint if a port is configured
+     */
+    public static synchronized void start() {
+        int port = LLMConfig.CLIENT.metricsPort.get();
+        if (port == 0 || httpServer != null) {
+            return;
+        }
+
+        String bindAddress = LLMConfig.CLIENT.metricsBindAddress.get();
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+            server.createContext("/metrics", MetricsHttpServer::handle);
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LLMConversations-Metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.start();
+            httpServer = server;
+            DebugLogger.log("Metrics endpoint listening on http://" + bindAddress + ":" + port + "/metrics");
+        } catch (IOException | IllegalArgumentException e) {
+            DebugLogger.error("Could not start metrics endpoint on " + bindAddress + ":" + port, e);
+        }
+    }
+
+    /**
+     * Stop the endpoint if it is running
+     */
+    public static synchronized void stop() {
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.stop(0);
+        executor.shutdownNow();
+        httpServer = null;
+        executor = null;
+    }
+
+    /**
+     * @return Address the endpoint listens on, or null if it isn't running
+     */
+    public static synchronized String getAddress() {
+        if (httpServer == null) {
+            return null;
+        }
+        InetSocketAddress address = httpServer.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + "/metrics";
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = MetricsRegistry.getInstance().toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
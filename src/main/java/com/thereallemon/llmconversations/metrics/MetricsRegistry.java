@@ -0,0 +1,167 @@
+package com.thereallemon.llmconversations.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the mod's metrics, written out in Prometheus text format
+ * Metrics are registered once (see {@link ModMetrics}) and then updated without locking; only
+ * registering and exporting take the registry's lock. Counts that other classes already keep
+ * (cache hits, scheduler totals) are registered as functions and read when exported.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    // Metric name -> family, in registration order
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Get the shared registry
+     * @return The registry instance
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a counter
+     * @param name Metric name, ending in _total
+     * @param help Description
+     * @param labels Label names and values, alternating
+     * @return The counter
+     */
+    public Counter counter(String name, String help, String... labels) {
+        Counter counter = new Counter();
+        register(name, help, "counter", labels,
+            (out, metricName, labelText) -> writeSample(out, metricName, labelText, counter.get()));
+        return counter;
+    }
+
+    /**
+     * Register a counter whose value is kept elsewhere
+     * @param name Metric name, ending in _total
+     * @param help Description
+     * @param value Reads the current count
+     * @param labels Label names and values, alternating
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, "counter", labels,
+            (out, metricName, labelText) -> writeSample(out, metricName, labelText, value.getAsLong()));
+    }
+
+    /**
+     * Register a gauge
+     * @param name Metric name
+     * @param help Description
+     * @param value Reads the current value
+     * @param labels Label names and values, alternating
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, "gauge", labels,
+            (out, metricName, labelText) -> writeSample(out, metricName, labelText, value.getAsDouble()));
+    }
+
+    /**
+     * Register a latency histogram
+     * @param name Metric name, ending in _seconds
+     * @param help Description
+     * @param labels Label names and values, alternating
+     * @return The histogram
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        register(name, help, "histogram", labels, histogram::writePrometheus);
+        return histogram;
+    }
+
+    /**
+     * Write all metrics in Prometheus text exposition format (version 0.0.4)
+     * @return The metrics text
+     */
+    public synchronized String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            out.append("# HELP ").append(entry.getKey()).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(family.type).append('\n');
+            for (Series series : family.series) {
+                series.writer.write(out, entry.getKey(), series.labels);
+            }
+        }
+        return out.toString();
+    }
+
+    private synchronized void register(String name, String help, String type, String[] labels, SampleWriter writer) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        family.series.add(new Series(formatLabels(labels), writer));
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Format label pairs as name="value",name="value"
+     */
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            String value = labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            text.append(labels[i]).append("=\"").append(value).append('"');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the samples of one series
+     */
+    private interface SampleWriter {
+        void write(StringBuilder out, String name, String labels);
+    }
+
+    /**
+     * One label combination of a metric
+     */
+    private record Series(String labels, SampleWriter writer) {
+    }
+
+    /**
+     * All series of a metric name
+     */
+    private static class Family {
+        final String help;
+        final String type;
+        final List<Series> series = new ArrayList<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.thereallemon.llmconversations.metrics;
+
+import com.thereallemon.llmconversations.llm.PromptCacheStats;
+import com.thereallemon.llmconversations.llm.RequestScheduler;
+import com.thereallemon.llmconversations.llm.RequestType;
+import com.thereallemon.llmconversations.llm.ResponseCache;
+import com.thereallemon.llmconversations.memory.MemoryCache;
+import com.thereallemon.llmconversations.state.ConversationStateManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The mod's metrics
+ * Hot paths update the counters and histograms here directly; everything already counted
+ * elsewhere is registered as a function of its owner.
+ */
+public final class ModMetrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getInstance();
+    private static final String PREFIX = "llmconversations_";
+
+    // LLM requests
+    private static final Map<RequestType, LatencyHistogram> REQUEST_DURATION = new EnumMap<>(RequestType.class);
+    public static final LatencyHistogram QUEUE_WAIT = REGISTRY.histogram(PREFIX + "request_queue_wait_seconds",
+        "Time requests spent queued in the scheduler before starting");
+    public static final LatencyHistogram ATTEMPT_DURATION = REGISTRY.histogram(PREFIX + "request_attempt_duration_seconds",
+        "Duration of single attempts against the provider");
+    public static final Counter RETRIES = REGISTRY.counter(PREFIX + "request_retries_total",
+        "Attempts retried after a failure");
+    public static final Counter FAILURES = REGISTRY.counter(PREFIX + "request_failures_total",
+        "Requests that failed after all attempts");
+    public static final Counter CIRCUIT_REJECTIONS = REGISTRY.counter(PREFIX + "circuit_rejections_total",
+        "Attempts refused because the model's circuit breaker was open");
+
+    // Server thread time spent in the mod's callbacks
+    public static final LatencyHistogram SERVER_TICK = serverThread("tick");
+    public static final LatencyHistogram SERVER_CHAT = serverThread("chat");
+    public static final LatencyHistogram SERVER_RESPONSE = serverThread("response");
+    public static final LatencyHistogram SERVER_SUMMARY = serverThread("summary");
+
+    static {
+        for (RequestType type : RequestType.values()) {
+            REQUEST_DURATION.put(type, REGISTRY.histogram(PREFIX + "request_duration_seconds",
+                "Time from submitting an LLM request to its completion, including queueing and retries",
+                "type", type.name().toLowerCase(Locale.ROOT)));
+        }
+
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        REGISTRY.gauge(PREFIX + "requests_in_flight", "LLM requests currently running", scheduler::getInFlight);
+        REGISTRY.gauge(PREFIX + "request_queue_depth", "LLM requests waiting for a free slot",
+            () -> scheduler.getQueueDepth(true), "queue", "interactive");
+        REGISTRY.gauge(PREFIX + "request_queue_depth", "LLM requests waiting for a free slot",
+            () -> scheduler.getQueueDepth(false), "queue", "background");
+        REGISTRY.counter(PREFIX + "requests_submitted_total", "LLM requests submitted", scheduler::getSubmittedCount);
+        REGISTRY.counter(PREFIX + "requests_completed_total", "LLM requests finished, successfully or not",
+            scheduler::getCompletedCount);
+
+        REGISTRY.gauge(PREFIX + "conversations_active", "Conversations in progress",
+            () -> ConversationStateManager.getSessions().size());
+
+        MemoryCache memoryCache = MemoryCache.getInstance();
+        REGISTRY.gauge(PREFIX + "memory_cache_entries", "Decoded memories held in RAM", memoryCache::size);
+        REGISTRY.counter(PREFIX + "memory_cache_hits_total", "Memory lookups served from RAM", memoryCache::getHits);
+        REGISTRY.counter(PREFIX + "memory_cache_misses_total", "Memory lookups that decoded from storage",
+            memoryCache::getMisses);
+        REGISTRY.counter(PREFIX + "memory_cache_evictions_total", "Memories dropped from RAM", memoryCache::getEvictions);
+
+        ResponseCache responseCache = ResponseCache.getInstance();
+        REGISTRY.gauge(PREFIX + "response_cache_entries", "Cached LLM responses", responseCache::size);
+        REGISTRY.counter(PREFIX + "response_cache_hits_total", "Requests answered from the response cache",
+            responseCache::getHits);
+        REGISTRY.counter(PREFIX + "response_cache_misses_total", "Cacheable requests sent to the provider",
+            responseCache::getMisses);
+        REGISTRY.counter(PREFIX + "response_cache_evictions_total", "Responses evicted from the cache",
+            responseCache::getEvictions);
+
+        REGISTRY.counter(PREFIX + "prompt_tokens_total", "Prompt tokens reported by providers",
+            PromptCacheStats::getPromptTokens);
+        REGISTRY.counter(PREFIX + "prompt_cached_tokens_total", "Prompt tokens served from the provider's prompt cache",
+            PromptCacheStats::getCachedTokens);
+    }
+
+    private ModMetrics() {
+    }
+
+    /**
+     * Register the metrics (they are also registered on first use of any of them)
+     */
+    public static void init() {
+    }
+
+    /**
+     * @param type Kind of request
+     * @return End-to-end duration histogram of that kind of request
+     */
+    public static LatencyHistogram requestDuration(RequestType type) {
+        return REQUEST_DURATION.get(type);
+    }
+
+    private static LatencyHistogram serverThread(String task) {
+        return REGISTRY.histogram(PREFIX + "server_thread_seconds",
+            "Server thread time spent in the mod's callbacks", "task", task);
+    }
+}
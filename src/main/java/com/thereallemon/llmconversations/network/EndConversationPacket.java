@@ -1,8 +1,7 @@
 package com.thereallemon.llmconversations.network;
 
 import com.minecolonies.api.colony.ICitizenData;
-import com.minecolonies.api.colony.IColonyManager;
-import com.thereallemon.llmconversations.interaction.LLMConversationHandler;
+import com.thereallemon.llmconversations.state.ConversationSession;
 import com.thereallemon.llmconversations.state.ConversationStateManager;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import io.netty.buffer.ByteBuf;
@@ -30,53 +29,31 @@ public record EndConversationPacket() implements CustomPacketPayload {
         context.enqueueWork(() -> {
             if (context.player() instanceof ServerPlayer serverPlayer) {
                 // Find which citizen the player is talking to
-                Integer citizenId = ConversationStateManager.getConversationPartner(serverPlayer.getUUID());
+                ConversationSession session = ConversationStateManager.getSession(serverPlayer.getUUID());
 
-                if (citizenId == null) {
+                if (session == null) {
                     serverPlayer.sendSystemMessage(Component.translatable("llmconversations.message.not_in_conversation"));
                     return;
                 }
 
                 // Find the citizen data
-                ICitizenData citizenData = IColonyManager.getInstance()
-                    .getAllColonies()
-                    .stream()
-                    .flatMap(colony -> colony.getCitizenManager().getCitizens().stream())
-                    .filter(citizen -> citizen.getId() == citizenId)
-                    .findFirst()
-                    .orElse(null);
+                ICitizenData citizenData = session.resolveCitizen();
 
                 if (citizenData == null) {
-                    ConversationStateManager.endConversation(citizenId);
+                    ConversationStateManager.endConversation(session);
                     serverPlayer.sendSystemMessage(Component.translatable("llmconversations.message.citizen_left"));
                     return;
                 }
 
                 // End the conversation properly
-                LLMConversationHandler handler = ConversationStateManager.getHandler(citizenId);
-                if (handler != null) {
-                    DebugLogger.log("Ending conversation between " + serverPlayer.getName().getString() +
-                                  " and " + citizenData.getName());
-                    handler.endConversation(serverPlayer);
-                } else {
-                    // Fallback cleanup
-                    ConversationStateManager.unfreezeStats(citizenData);
-                    ConversationStateManager.endConversation(citizenId);
-
-                    if (citizenData.getJob() != null) {
-                        citizenData.getJob().onWakeUp();
-                        citizenData.getJob().resetAI();
-                    }
-
-                    serverPlayer.sendSystemMessage(Component.translatable(
-                        "llmconversations.message.conversation_ended", citizenData.getName()
-                    ));
-                }
+                DebugLogger.log("Ending conversation between " + serverPlayer.getName().getString() +
+                              " and " + citizenData.getName());
+                session.getHandler().endConversation(serverPlayer);
 
                 // Notify client that conversation has ended
                 net.neoforged.neoforge.network.PacketDistributor.sendToPlayer(
                     serverPlayer,
-                    new SyncConversationStatePacket(citizenId, false)
+                    new SyncConversationStatePacket(citizenData.getId(), false)
                 );
             }
         });
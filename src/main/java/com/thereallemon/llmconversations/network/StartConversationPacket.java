@@ -1,6 +1,7 @@
 package com.thereallemon.llmconversations.network;
 
 import com.minecolonies.api.entity.citizen.AbstractEntityCitizen;
+import com.thereallemon.llmconversations.state.CitizenRef;
 import com.thereallemon.llmconversations.state.ConversationStateManager;
 import com.thereallemon.llmconversations.util.DebugLogger;
 import io.netty.buffer.ByteBuf;
@@ -46,6 +47,16 @@ public record StartConversationPacket(int entityId) implements CustomPacketPaylo
                         return;
                     }
 
+                    // Check if someone else is already talking to this citizen
+                    if (citizen.getCitizenData() == null
+                        || ConversationStateManager.isInConversation(CitizenRef.of(citizen.getCitizenData()))) {
+                        serverPlayer.sendSystemMessage(
+                            Component.translatable("llmconversations.message.citizen_busy",
+                                citizen.getName().getString())
+                        );
+                        return;
+                    }
+
                     // Check distance (within 10 blocks)
                     double distance = serverPlayer.distanceToSqr(citizen);
                     if (distance > 100) { // 10 blocks squared
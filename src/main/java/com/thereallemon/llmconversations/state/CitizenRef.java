@@ -0,0 +1,50 @@
+package com.thereallemon.llmconversations.state;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IColonyManager;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+/**
+ * Identifies a citizen across colonies
+ * Citizen IDs are only unique within a colony, so the colony and its dimension are part of the key.
+ * Resolving goes through the colony manager's and citizen manager's own indexes, so it costs the
+ * same no matter how many colonies and citizens exist, and always reflects citizens that were
+ * added, removed or died since the reference was taken.
+ * @param dimension Dimension of the colony
+ * @param colonyId The colony's ID
+ * @param citizenId The citizen's ID within the colony
+ */
+public record CitizenRef(ResourceKey<Level> dimension, int colonyId, int citizenId) {
+
+    /**
+     * @param citizen The citizen
+     * @return A reference to the citizen
+     */
+    public static CitizenRef of(ICitizenData citizen) {
+        IColony colony = citizen.getColony();
+        return new CitizenRef(colony.getDimension(), colony.getID(), citizen.getId());
+    }
+
+    /**
+     * Look up the citizen
+     * @return The citizen, or null if its colony or the citizen no longer exists
+     */
+    public ICitizenData resolve() {
+        return resolve(IColonyManager.getInstance());
+    }
+
+    /**
+     * Look up the citizen in a given colony manager
+     * @param colonyManager The colony manager
+     * @return The citizen, or null if its colony or the citizen no longer exists
+     */
+    public ICitizenData resolve(IColonyManager colonyManager) {
+        IColony colony = colonyManager.getColonyByDimension(colonyId, dimension);
+        if (colony == null) {
+            return null;
+        }
+        return colony.getCitizenManager().getCivilian(citizenId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.thereallemon.llmconversations.state;
+
+import com.minecolonies.api.colony.ICitizenData;
+import com.minecolonies.api.entity.citizen.AbstractEntityCitizen;
+import com.thereallemon.llmconversations.interaction.LLMConversationHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.lang.ref.WeakReference;
+import java.util.UUID;
+
+/**
+ * One active conversation between a player and a citizen
+ * The citizen entity is only weakly referenced, so a session never keeps an unloaded or
+ * removed entity alive.
+ */
+public class ConversationSession {
+    private final UUID playerId;
+    private final CitizenRef citizen;
+    private final LLMConversationHandler handler;
+    private final double frozenSaturation;
+
+    // Cached for per-tick maintenance; replaced when the entity or player object goes away
+    private WeakReference<AbstractEntityCitizen> entity;
+    private WeakReference<ServerPlayer> player;
+
+    ConversationSession(ServerPlayer player, CitizenRef citizen, LLMConversationHandler handler,
+                        AbstractEntityCitizen entity, double frozenSaturation) {
+        this.playerId = player.getUUID();
+        this.citizen = citizen;
+        this.handler = handler;
+        this.entity = new WeakReference<>(entity);
+        this.player = new WeakReference<>(player);
+        this.frozenSaturation = frozenSaturation;
+    }
+
+    /**
+     * @return UUID of the player in the conversation
+     */
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * @return Reference to the citizen in the conversation
+     */
+    public CitizenRef getCitizen() {
+        return citizen;
+    }
+
+    /**
+     * @return The citizen's data, or null if the citizen no longer exists
+     */
+    public ICitizenData resolveCitizen() {
+        return citizen.resolve();
+    }
+
+    /**
+     * @return The conversation handler
+     */
+    public LLMConversationHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Get the citizen entity, looking it up again if the cached one was removed (e.g. chunk reload)
+     * @return The citizen entity, or null if it isn't loaded
+     */
+    public AbstractEntityCitizen getEntity() {
+        AbstractEntityCitizen citizenEntity = entity.get();
+        if (citizenEntity != null && !citizenEntity.isRemoved()) {
+            return citizenEntity;
+        }
+
+        ICitizenData citizenData = resolveCitizen();
+        citizenEntity = citizenData != null ? citizenData.getEntity().orElse(null) : null;
+        if (citizenEntity == null || citizenEntity.isRemoved()) {
+            return null;
+        }
+        entity = new WeakReference<>(citizenEntity);
+        return citizenEntity;
+    }
+
+    /**
+     * Get the player, looking them up again if the cached object was replaced (e.g. after respawning)
+     * @param server The server
+     * @return The player, or null if they are offline
+     */
+    public ServerPlayer getPlayer(MinecraftServer server) {
+        ServerPlayer serverPlayer = player.get();
+        if (serverPlayer != null && !serverPlayer.isRemoved()) {
+            return serverPlayer;
+        }
+
+        serverPlayer = server.getPlayerList().getPlayer(playerId);
+        if (serverPlayer == null) {
+            return null;
+        }
+        player = new WeakReference<>(serverPlayer);
+        return serverPlayer;
+    }
+
+    /**
+     * @return Saturation the citizen is held at during the conversation
+     */
+    public double getFrozenSaturation() {
+        return frozenSaturation;
+    }
+}
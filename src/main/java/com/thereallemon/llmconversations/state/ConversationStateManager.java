@@ -4,88 +4,84 @@ import com.minecolonies.api.colony.ICitizenData;
 import com.minecolonies.api.entity.citizen.AbstractEntityCitizen;
 import com.thereallemon.llmconversations.config.LLMConfig;
 import com.thereallemon.llmconversations.interaction.LLMConversationHandler;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages the state of active conversations and frozen citizen stats
+ * Each conversation is one {@link ConversationSession}, indexed by player and by citizen,
+ * so lookups from either side are constant time.
  */
 public class ConversationStateManager {
     
-    // citizenId -> playerUUID mapping
-    private static final Map<Integer, UUID> activeConversations = new HashMap<>();
+    // player UUID -> session
+    private static final Map<UUID, ConversationSession> sessionsByPlayer = new ConcurrentHashMap<>();
 
-    // citizenId -> handler mapping
-    private static final Map<Integer, LLMConversationHandler> handlers = new HashMap<>();
-
-    // citizenId -> frozen saturation value
-    private static final Map<Integer, Double> frozenSaturation = new HashMap<>();
-
-    // citizenId -> AbstractEntityCitizen mapping (for movement/look control)
-    private static final Map<Integer, AbstractEntityCitizen> conversationEntities = new HashMap<>();
-
-    // citizenId -> player UUID for look tracking
-    private static final Map<Integer, UUID> lookAtPlayers = new HashMap<>();
-
-    /**
-     * Start a conversation between a citizen and player
-     * @param citizenId The citizen's ID
-     * @param playerUUID The player's UUID
-     */
-    public static void startConversation(int citizenId, UUID playerUUID) {
-        activeConversations.put(citizenId, playerUUID);
-    }
+    // citizen -> session
+    private static final Map<CitizenRef, ConversationSession> sessionsByCitizen = new ConcurrentHashMap<>();
 
     /**
-     * Start a conversation between a citizen entity and player (convenience method)
+     * Start a conversation between a citizen entity and player
      * @param player The player
      * @param citizen The citizen entity
+     * @return The new session, or null if the citizen has no data
      */
-    public static void startConversation(ServerPlayer player, AbstractEntityCitizen citizen) {
+    public static ConversationSession startConversation(ServerPlayer player, AbstractEntityCitizen citizen) {
         ICitizenData citizenData = citizen.getCitizenData();
-        if (citizenData != null) {
-            startConversation(citizenData.getId(), player.getUUID());
+        if (citizenData == null) {
+            return null;
+        }
 
-            // Create and register LLM conversation handler
-            LLMConversationHandler handler = new LLMConversationHandler(citizenData);
-            registerHandler(citizenData.getId(), handler);
+        // Create the LLM conversation handler and freeze citizen stats
+        LLMConversationHandler handler = new LLMConversationHandler(citizenData);
+        ConversationSession session = new ConversationSession(
+            player, CitizenRef.of(citizenData), handler, citizen, citizenData.getSaturation());
 
-            // Trigger the interaction in Minecolonies system
-            citizenData.triggerInteraction(handler);
+        sessionsByPlayer.put(session.getPlayerId(), session);
+        sessionsByCitizen.put(session.getCitizen(), session);
 
-            // Freeze citizen stats
-            freezeStats(citizenData);
+        // Trigger the interaction in Minecolonies system
+        citizenData.triggerInteraction(handler);
 
-            // Stop movement and make citizen look at player
-            stopMovementAndLookAtPlayer(citizen, player);
-        }
+        // Stop movement and make citizen look at player
+        stopMovementAndLookAtPlayer(citizen, player);
+        return session;
     }
 
     /**
      * End a conversation
-     * @param citizenId The citizen's ID
+     * @param session The conversation's session
      */
-    public static void endConversation(int citizenId) {
-        // Resume normal movement
-        resumeMovement(citizenId);
+    public static void endConversation(ConversationSession session) {
+        sessionsByPlayer.remove(session.getPlayerId(), session);
+        sessionsByCitizen.remove(session.getCitizen(), session);
+        // Movement and look control return to normal by themselves once we stop maintaining them
+    }
 
-        activeConversations.remove(citizenId);
-        handlers.remove(citizenId);
-        frozenSaturation.remove(citizenId);
-        conversationEntities.remove(citizenId);
-        lookAtPlayers.remove(citizenId);
+    /**
+     * End the conversation of a citizen, if it is in one
+     * @param citizen The citizen
+     */
+    public static void endConversation(CitizenRef citizen) {
+        ConversationSession session = sessionsByCitizen.get(citizen);
+        if (session != null) {
+            endConversation(session);
+        }
     }
     
     /**
      * Check if a citizen is currently in a conversation
-     * @param citizenId The citizen's ID
+     * @param citizen The citizen
      * @return True if in conversation
      */
-    public static boolean isInConversation(int citizenId) {
-        return activeConversations.containsKey(citizenId);
+    public static boolean isInConversation(CitizenRef citizen) {
+        return sessionsByCitizen.containsKey(citizen);
     }
     
     /**
@@ -94,91 +90,69 @@ public class ConversationStateManager {
      * @return True if in conversation
      */
     public static boolean isInConversation(ServerPlayer player) {
-        return activeConversations.containsValue(player.getUUID());
+        return sessionsByPlayer.containsKey(player.getUUID());
     }
 
     /**
-     * Get the citizen ID that a player is conversing with
+     * Get the conversation a player is in
      * @param playerUUID The player's UUID
-     * @return The citizen's ID, or null if not in conversation
-     */
-    public static Integer getConversationPartner(UUID playerUUID) {
-        return activeConversations.entrySet().stream()
-            .filter(e -> e.getValue().equals(playerUUID))
-            .map(Map.Entry::getKey)
-            .findFirst()
-            .orElse(null);
-    }
-    
-    /**
-     * Register a conversation handler for a citizen
-     * @param citizenId The citizen's ID
-     * @param handler The conversation handler
-     */
-    public static void registerHandler(int citizenId, LLMConversationHandler handler) {
-        handlers.put(citizenId, handler);
-    }
-    
-    /**
-     * Get the conversation handler for a citizen
-     * @param citizenId The citizen's ID
-     * @return The handler, or null if not found
+     * @return The session, or null if not in conversation
      */
-    public static LLMConversationHandler getHandler(int citizenId) {
-        return handlers.get(citizenId);
+    public static ConversationSession getSession(UUID playerUUID) {
+        return sessionsByPlayer.get(playerUUID);
     }
-    
+
     /**
-     * Freeze a citizen's stats during conversation
-     * @param citizen The citizen data
+     * Get the conversation a citizen is in
+     * @param citizen The citizen
+     * @return The session, or null if not in conversation
      */
-    public static void freezeStats(ICitizenData citizen) {
-        frozenSaturation.put(citizen.getId(), citizen.getSaturation());
+    public static ConversationSession getSession(CitizenRef citizen) {
+        return sessionsByCitizen.get(citizen);
     }
     
     /**
-     * Unfreeze a citizen's stats after conversation
-     * @param citizen The citizen data
+     * Get all active conversations
+     * @return Unmodifiable live view of the sessions
      */
-    public static void unfreezeStats(ICitizenData citizen) {
-        frozenSaturation.remove(citizen.getId());
+    public static Collection<ConversationSession> getSessions() {
+        return Collections.unmodifiableCollection(sessionsByPlayer.values());
     }
     
     /**
-     * Maintain frozen stats for a citizen in conversation
-     * Called on tick to prevent stats from decreasing
-     * @param citizen The citizen data
-     */
-    public static void maintainFrozenStats(ICitizenData citizen) {
-        if (isInConversation(citizen.getId())) {
-            Double frozenValue = frozenSaturation.get(citizen.getId());
-            if (frozenValue != null) {
-                // Restore the frozen saturation value
-                citizen.setSaturation(frozenValue);
-            }
+     * Maintain a citizen in conversation
+     * Called every tick: keeps the citizen facing the player and ends the conversation
+     * if the player left or walked too far away.
+     * @param session The conversation
+     * @param server The server
+     * @param restoreStats True to also restore the frozen stats this tick
+     */
+    public static void maintainSession(ConversationSession session, MinecraftServer server, boolean restoreStats) {
+        AbstractEntityCitizen citizen = session.getEntity();
+        if (citizen == null) {
+            return; // Citizen isn't loaded, nothing to maintain
+        }
 
-            // Maintain look at player
-            maintainLookAtPlayer(citizen);
+        ICitizenData citizenData = citizen.getCitizenData();
+        if (citizenData == null) {
+            return;
         }
-    }
-    
-    /**
-     * Get all active conversations
-     * @return Map of citizen IDs to player UUIDs
-     */
-    public static Map<Integer, UUID> getActiveConversations() {
-        return new HashMap<>(activeConversations);
+
+        if (restoreStats) {
+            // Restore the frozen saturation value
+            citizenData.setSaturation(session.getFrozenSaturation());
+        }
+
+        // Maintain look at player
+        maintainLookAtPlayer(session, citizen, citizenData, server);
     }
     
     /**
      * Clear all conversation state (useful for cleanup)
      */
     public static void clearAll() {
-        activeConversations.clear();
-        handlers.clear();
-        frozenSaturation.clear();
-        conversationEntities.clear();
-        lookAtPlayers.clear();
+        sessionsByPlayer.clear();
+        sessionsByCitizen.clear();
     }
 
     /**
@@ -190,10 +164,6 @@ public class ConversationStateManager {
         // Stop navigation/pathfinding
         citizen.getNavigation().stop();
 
-        // Store references for maintenance
-        conversationEntities.put(citizen.getCivilianID(), citizen);
-        lookAtPlayers.put(citizen.getCivilianID(), player.getUUID());
-
         // Make citizen look at player
         if (citizen.getLookControl() != null) {
             citizen.getLookControl().setLookAt(player, 30.0F, 30.0F);
@@ -202,119 +172,71 @@ public class ConversationStateManager {
 
     /**
      * Maintain the citizen looking at the player during conversation
-     * Called every tick to keep them facing the player
      * Also checks if player is too far away
+     * @param session The conversation
+     * @param citizen The citizen entity
      * @param citizenData The citizen data
-     */
-    private static void maintainLookAtPlayer(ICitizenData citizenData) {
-        AbstractEntityCitizen citizen = conversationEntities.get(citizenData.getId());
-        UUID playerUUID = lookAtPlayers.get(citizenData.getId());
-
-        if (citizen != null && playerUUID != null && !citizen.isRemoved()) {
-            // Find the player
-            ServerPlayer player = citizen.getServer() != null ?
-                citizen.getServer().getPlayerList().getPlayer(playerUUID) : null;
+     * @param server The server
+     */
+    private static void maintainLookAtPlayer(ConversationSession session, AbstractEntityCitizen citizen,
+                                             ICitizenData citizenData, MinecraftServer server) {
+        ServerPlayer player = session.getPlayer(server);
+        if (player == null) {
+            // Player not found (logged out, etc.)
+            endConversationDueToPlayerGone(session, citizenData);
+            return;
+        }
 
-            if (player != null) {
-                // Check distance - if too far, end conversation
-                double maxDistance = LLMConfig.CLIENT.maxConversationDistance.get();
-                if (maxDistance > 0) { // Only check if distance checking is enabled
-                    double distance = citizen.distanceTo(player);
-                    if (distance > maxDistance) {
-                        // End conversation due to distance
-                        endConversationDueToDistance(citizenData, player);
-                        return;
-                    }
-                }
+        // Check distance - if too far (or in another dimension), end conversation
+        double maxDistance = LLMConfig.CLIENT.maxConversationDistance.get();
+        if (maxDistance > 0) { // Only check if distance checking is enabled
+            if (player.level() != citizen.level() || citizen.distanceToSqr(player) > maxDistance * maxDistance) {
+                endConversationDueToDistance(session, citizenData, player);
+                return;
+            }
+        }
 
-                // Stop any movement that might have started
-                if (citizen.getNavigation().isInProgress()) {
-                    citizen.getNavigation().stop();
-                }
+        // Stop any movement that might have started
+        if (citizen.getNavigation().isInProgress()) {
+            citizen.getNavigation().stop();
+        }
 
-                // Continuously update look direction
-                if (citizen.getLookControl() != null) {
-                    citizen.getLookControl().setLookAt(player, 30.0F, 30.0F);
-                }
-            } else {
-                // Player not found (logged out, changed dimension, etc.)
-                endConversationDueToPlayerGone(citizenData);
-            }
+        // Continuously update look direction
+        if (citizen.getLookControl() != null) {
+            citizen.getLookControl().setLookAt(player, 30.0F, 30.0F);
         }
     }
 
     /**
      * End conversation because player walked too far away
+     * @param session The conversation
      * @param citizenData The citizen data
      * @param player The player
      */
-    private static void endConversationDueToDistance(ICitizenData citizenData, ServerPlayer player) {
-        // Get handler to properly end conversation
-        LLMConversationHandler handler = handlers.get(citizenData.getId());
-
+    private static void endConversationDueToDistance(ConversationSession session, ICitizenData citizenData, ServerPlayer player) {
         // Notify player
         player.sendSystemMessage(
             net.minecraft.network.chat.Component.translatable("llmconversations.message.too_far",
                 citizenData.getName())
         );
 
-        // End conversation properly through handler if available
-        if (handler != null) {
-            handler.endConversation(player);
-        } else {
-            // Fallback cleanup
-            unfreezeStats(citizenData);
-            endConversation(citizenData.getId());
-
-            if (citizenData.getJob() != null) {
-                citizenData.getJob().onWakeUp();
-                citizenData.getJob().resetAI();
-            }
-
-            // Sync to client
-            net.neoforged.neoforge.network.PacketDistributor.sendToPlayer(
-                player,
-                new com.thereallemon.llmconversations.network.SyncConversationStatePacket(
-                    citizenData.getId(), false)
-            );
-        }
+        // End conversation properly through handler
+        session.getHandler().endConversation(player);
     }
 
     /**
      * End conversation because player is gone (logged out, dimension change, etc.)
+     * @param session The conversation
      * @param citizenData The citizen data
      */
-    private static void endConversationDueToPlayerGone(ICitizenData citizenData) {
-        // Clean up without trying to message the player
-        LLMConversationHandler handler = handlers.get(citizenData.getId());
+    private static void endConversationDueToPlayerGone(ConversationSession session, ICitizenData citizenData) {
+        // Can't call endConversation(player) since player is gone
+        // Do manual cleanup
+        endConversation(session);
 
-        if (handler != null) {
-            // Can't call endConversation(player) since player is gone
-            // Do manual cleanup
-            unfreezeStats(citizenData);
-            endConversation(citizenData.getId());
-
-            if (citizenData.getJob() != null) {
-                citizenData.getJob().onWakeUp();
-                citizenData.getJob().resetAI();
-            }
-        } else {
-            // Handler already gone, just clean up state
-            unfreezeStats(citizenData);
-            endConversation(citizenData.getId());
-        }
-    }
-
-    /**
-     * Resume normal movement after conversation ends
-     * @param citizenId The citizen's ID
-     */
-    private static void resumeMovement(int citizenId) {
-        AbstractEntityCitizen citizen = conversationEntities.get(citizenId);
-        if (citizen != null && !citizen.isRemoved()) {
-            // Navigation will resume naturally when the AI state machine continues
-            // The look control will also return to normal behavior
-            // No explicit action needed - just removing from our tracking maps is sufficient
+        if (citizenData.getJob() != null) {
+            citizenData.getJob().onWakeUp();
+            citizenData.getJob().resetAI();
         }
     }
 }
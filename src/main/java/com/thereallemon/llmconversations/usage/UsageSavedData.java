@@ -0,0 +1,50 @@
+package com.thereallemon.llmconversations.usage;
+
+import com.thereallemon.llmconversations.util.DebugLogger;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.saveddata.SavedData;
+
+/**
+ * The {@link UsageTracker}'s counts, stored with the world
+ * Marked dirty whenever usage is recorded, so the counts are written with each world save (autosave included).
+ */
+public class UsageSavedData extends SavedData {
+    private static final String DATA_NAME = "llmconversations_usage";
+
+    public UsageSavedData() {
+        super();
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        tag.put("usage", UsageTracker.getInstance().save());
+        return tag;
+    }
+
+    public static UsageSavedData load(CompoundTag tag, HolderLookup.Provider provider) {
+        UsageTracker.getInstance().load(tag.getList("usage", Tag.TAG_COMPOUND));
+        return new UsageSavedData();
+    }
+
+    /**
+     * Load the server's usage into the tracker and keep it saved from now on
+     * @param server The server
+     */
+    public static void attach(MinecraftServer server) {
+        UsageTracker tracker = UsageTracker.getInstance();
+        tracker.detach(); // Counts of a previous world (single-player)
+
+        UsageSavedData data = server.overworld().getDataStorage().computeIfAbsent(
+            new SavedData.Factory<>(
+                UsageSavedData::new,
+                UsageSavedData::load
+            ),
+            DATA_NAME
+        );
+        tracker.attach(data);
+        DebugLogger.debug("Usage tracking attached: {} requests counted so far", tracker.overall().getRequests());
+    }
+}
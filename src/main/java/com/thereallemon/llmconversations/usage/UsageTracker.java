@@ -0,0 +1,292 @@
+package com.thereallemon.llmconversations.usage;
+
+import com.thereallemon.llmconversations.llm.RequestContext;
+import com.thereallemon.llmconversations.llm.RequestType;
+import com.thereallemon.llmconversations.llm.TokenUsage;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Token usage and cost reported by the provider, per model, request type, player and citizen
+ * Responses complete on network threads, so counting is lock-free: each combination has its own
+ * adders, and per-model, per-player etc. totals are summed when asked for. The counts belong to
+ * the running server and are stored with its world (see {@link UsageSavedData}).
+ */
+public class UsageTracker {
+    private static final UsageTracker INSTANCE = new UsageTracker();
+
+    private final ConcurrentHashMap<Key, Counters> counters = new ConcurrentHashMap<>();
+
+    // Saved data to mark dirty on changes, null when no server is running
+    private volatile UsageSavedData savedData;
+
+    private UsageTracker() {
+    }
+
+    /**
+     * Get the shared tracker
+     * @return The tracker instance
+     */
+    public static UsageTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Count the usage of a completed response (called once per attempt, as each is billed)
+     * @param context Who the request was for
+     * @param model Model identifier
+     * @param usage Usage reported by the provider, may be null
+     */
+    public void record(RequestContext context, String model, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        Key key = new Key(model, context.type(), context.playerId(), context.colonyId(), context.citizenId());
+        counters.computeIfAbsent(key, k -> new Counters()).add(usage);
+
+        UsageSavedData data = savedData;
+        if (data != null) {
+            data.setDirty(); // Written with the next world save
+        }
+    }
+
+    /**
+     * Totals grouped by one dimension, largest token count first
+     * @param grouping What to group by
+     * @return One total per group
+     */
+    public List<Total> totals(Grouping grouping) {
+        Map<String, Total> groups = new HashMap<>();
+        for (Map.Entry<Key, Counters> entry : counters.entrySet()) {
+            String group = grouping.label.apply(entry.getKey());
+            groups.computeIfAbsent(group, Total::new).add(entry.getValue());
+        }
+        List<Total> result = new ArrayList<>(groups.values());
+        result.sort(Comparator.comparingLong(Total::getTotalTokens).reversed());
+        return result;
+    }
+
+    /**
+     * @return Totals over all requests
+     */
+    public Total overall() {
+        Total total = new Total("all");
+        counters.values().forEach(total::add);
+        return total;
+    }
+
+    /**
+     * Start counting for a server, restoring what it counted before
+     * @param data The server's saved usage
+     */
+    void attach(UsageSavedData data) {
+        savedData = data;
+    }
+
+    /**
+     * Remove all counts (on server stop, or by an operator)
+     */
+    public void clear() {
+        counters.clear();
+        UsageSavedData data = savedData;
+        if (data != null) {
+            data.setDirty();
+        }
+    }
+
+    /**
+     * Stop counting for the current server and forget its counts
+     */
+    public void detach() {
+        savedData = null;
+        counters.clear();
+    }
+
+    /**
+     * Serialize all counts
+     */
+    ListTag save() {
+        ListTag list = new ListTag();
+        for (Map.Entry<Key, Counters> entry : counters.entrySet()) {
+            CompoundTag tag = new CompoundTag();
+            entry.getKey().save(tag);
+            entry.getValue().save(tag);
+            list.add(tag);
+        }
+        return list;
+    }
+
+    /**
+     * Restore counts written by {@link #save()}, replacing the current ones
+     */
+    void load(ListTag list) {
+        counters.clear();
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag tag = list.getCompound(i);
+            Key key = Key.load(tag);
+            if (key != null) {
+                counters.computeIfAbsent(key, k -> new Counters()).load(tag);
+            }
+        }
+    }
+
+    /**
+     * Dimensions usage can be grouped by
+     */
+    public enum Grouping {
+        MODEL(key -> key.model),
+        TYPE(key -> key.type.name().toLowerCase(Locale.ROOT)),
+        PLAYER(key -> key.playerId != null ? key.playerId.toString() : "system"),
+        COLONY(key -> "colony " + key.colonyId),
+        CITIZEN(key -> "colony " + key.colonyId + " citizen " + key.citizenId);
+
+        private final Function<Key, String> label;
+
+        Grouping(Function<Key, String> label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Summed usage of a group
+     */
+    public static class Total {
+        private final String label;
+        private long requests;
+        private long promptTokens;
+        private long completionTokens;
+        private long reasoningTokens;
+        private long cachedTokens;
+        private double cost;
+
+        Total(String label) {
+            this.label = label;
+        }
+
+        void add(Counters counters) {
+            requests += counters.requests.sum();
+            promptTokens += counters.promptTokens.sum();
+            completionTokens += counters.completionTokens.sum();
+            reasoningTokens += counters.reasoningTokens.sum();
+            cachedTokens += counters.cachedTokens.sum();
+            cost += counters.cost.sum();
+        }
+
+        /**
+         * @return The group, e.g. a model name or player UUID
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getPromptTokens() {
+            return promptTokens;
+        }
+
+        public long getCompletionTokens() {
+            return completionTokens;
+        }
+
+        public long getReasoningTokens() {
+            return reasoningTokens;
+        }
+
+        public long getCachedTokens() {
+            return cachedTokens;
+        }
+
+        public long getTotalTokens() {
+            return promptTokens + completionTokens;
+        }
+
+        /**
+         * @return Cost in USD as reported by the provider (0 for providers that don't report it)
+         */
+        public double getCost() {
+            return cost;
+        }
+    }
+
+    /**
+     * One combination of model, request type, player and citizen
+     */
+    private record Key(String model, RequestType type, UUID playerId, int colonyId, int citizenId) {
+
+        void save(CompoundTag tag) {
+            tag.putString("model", model);
+            tag.putString("type", type.name());
+            if (playerId != null) {
+                tag.putUUID("player", playerId);
+            }
+            tag.putInt("colonyId", colonyId);
+            tag.putInt("citizenId", citizenId);
+        }
+
+        static Key load(CompoundTag tag) {
+            RequestType type;
+            try {
+                type = RequestType.valueOf(tag.getString("type"));
+            } catch (IllegalArgumentException e) {
+                return null; // Request type no longer exists
+            }
+            UUID playerId = tag.hasUUID("player") ? tag.getUUID("player") : null;
+            return new Key(tag.getString("model"), type, playerId, tag.getInt("colonyId"), tag.getInt("citizenId"));
+        }
+    }
+
+    /**
+     * Running totals of one combination
+     */
+    private static class Counters {
+        final LongAdder requests = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder reasoningTokens = new LongAdder();
+        final LongAdder cachedTokens = new LongAdder();
+        final DoubleAdder cost = new DoubleAdder();
+
+        void add(TokenUsage usage) {
+            requests.increment();
+            promptTokens.add(usage.promptTokens());
+            completionTokens.add(usage.completionTokens());
+            reasoningTokens.add(usage.reasoningTokens());
+            cachedTokens.add(usage.cachedTokens());
+            cost.add(usage.cost());
+        }
+
+        void save(CompoundTag tag) {
+            tag.putLong("requests", requests.sum());
+            tag.putLong("promptTokens", promptTokens.sum());
+            tag.putLong("completionTokens", completionTokens.sum());
+            tag.putLong("reasoningTokens", reasoningTokens.sum());
+            tag.putLong("cachedTokens", cachedTokens.sum());
+            tag.putDouble("cost", cost.sum());
+        }
+
+        void load(CompoundTag tag) {
+            requests.add(tag.getLong("requests"));
+            promptTokens.add(tag.getLong("promptTokens"));
+            completionTokens.add(tag.getLong("completionTokens"));
+            reasoningTokens.add(tag.getLong("reasoningTokens"));
+            cachedTokens.add(tag.getLong("cachedTokens"));
+            cost.add(tag.getDouble("cost"));
+        }
+    }
+}
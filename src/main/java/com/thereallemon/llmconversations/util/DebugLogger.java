@@ -2,11 +2,17 @@ package com.thereallemon.llmconversations.util;
 
 import com.thereallemon.llmconversations.LLMConversationsMod;
 
+import java.util.regex.Matcher;
+
 public class DebugLogger {
     public static void log(String message) {
         LLMConversationsMod.LOGGER.info("[LLMConversations] " + message);
     }
 
+    public static boolean isDebugEnabled() {
+        return LLMConversationsMod.LOGGER.isDebugEnabled();
+    }
+
     public static void debug(String message) {
         LLMConversationsMod.LOGGER.debug("[LLMConversations] " + message);
     }
@@ -38,7 +44,7 @@ public class DebugLogger {
     private static String formatMessage(String format, Object... args) {
         String result = format;
         for (Object arg : args) {
-            result = result.replaceFirst("\\{\\}", String.valueOf(arg));
+            result = result.replaceFirst("\\{\\}", Matcher.quoteReplacement(String.valueOf(arg)));
         }
         return result;
     }
@@ -0,0 +1,29 @@
+package com.thereallemon.llmconversations.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class PromptBuilderTest {
+
+    @Test
+    void splitKeepsLineAndParagraphBreaks() {
+        String template = "You are {name}, a {job}.\nYou live in {colony_name}.\n\n"
+            + "Your happiness is {happiness}/10. You are speaking with {player_name}!\n\n"
+            + "Rules:\n- Stay in character.\n- Be brief.";
+
+        assertArrayEquals(new String[] {
+                "You are {name}, a {job}.\nYou live in {colony_name}.\n\n"
+                    + "You are speaking with {player_name}!\n\nRules:\n- Stay in character.\n- Be brief.",
+                "Your happiness is {happiness}/10."},
+            PromptBuilder.splitVolatileSentences(template));
+    }
+
+    @Test
+    void splitWithoutVolatileSentences() {
+        String template = "You are {name}.  Be friendly!\n";
+
+        assertArrayEquals(new String[] {"You are {name}.  Be friendly!", ""},
+            PromptBuilder.splitVolatileSentences(template));
+    }
+}
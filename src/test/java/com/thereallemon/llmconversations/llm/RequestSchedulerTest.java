@@ -0,0 +1,71 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import net.minecraft.world.level.Level;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestSchedulerTest {
+
+    @BeforeAll
+    static void loadConfig() {
+        InMemoryConfig.load(Map.of("network.max_concurrent_requests", 1));
+    }
+
+    @Test
+    void tasksCompletingImmediatelyDoNotNestDispatch() {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        RequestContext context = new RequestContext(RequestType.CHAT, null, Level.OVERWORLD, 1, 1);
+
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        CompletableFuture<String> first = scheduler.submit(context, () -> blocker);
+
+        // Queued behind the running request, each completes as it starts (like with an open circuit breaker)
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            queued.add(scheduler.submit(context, () -> CompletableFuture.completedFuture("cached")));
+        }
+        blocker.complete("done");
+
+        assertEquals("done", first.join());
+        assertTrue(queued.stream().allMatch(future -> "cached".equals(future.getNow(null))));
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(0, scheduler.getQueueDepth(true));
+    
+    }
+
+    @Test
+    void sameColonyIdInAnotherDimensionTakesTurns() {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        RequestContext overworld = new RequestContext(RequestType.CHAT, null, Level.OVERWORLD, 1, 1);
+        RequestContext nether = new RequestContext(RequestType.CHAT, null, Level.NETHER, 1, 1);
+
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(overworld, () -> blocker);
+
+        List<String> started = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(overworld, () -> CompletableFuture.completedFuture(record(started, "overworld")));
+        }
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(nether, () -> CompletableFuture.completedFuture(record(started, "nether")));
+        }
+        blocker.complete("done");
+
+        assertEquals(List.of("overworld", "nether", "overworld", "nether", "overworld", "nether"), started);
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    private static String record(List<String> started, String name) {
+        started.add(name);
+        return name;
+    }
+}
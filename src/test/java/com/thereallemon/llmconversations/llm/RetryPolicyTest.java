@@ -0,0 +1,80 @@
+package com.thereallemon.llmconversations.llm;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+    private static final long BASE_DELAY = 500;
+    private static final long MAX_DELAY = 8000;
+
+    @BeforeAll
+    static void loadConfig() {
+        InMemoryConfig.load(Map.of(
+            "resilience.retry_base_delay_ms", (int) BASE_DELAY,
+            "resilience.retry_max_delay_ms", (int) MAX_DELAY));
+    }
+
+    @Test
+    void retryAfterInSeconds() {
+        assertEquals(120_000, RetryPolicy.parseRetryAfter("120"));
+        assertEquals(1_500, RetryPolicy.parseRetryAfter(" 1.5 "));
+        assertEquals(0, RetryPolicy.parseRetryAfter("-3"));
+    }
+
+    @Test
+    void retryAfterAsHttpDate() {
+        String inThirtySeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        long delay = RetryPolicy.parseRetryAfter(inThirtySeconds);
+        // The header has whole seconds, and a little time passes while parsing
+        assertTrue(delay > 28_000 && delay <= 30_000, "delay was " + delay);
+
+        assertEquals(0, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+
+    @Test
+    void missingOrInvalidRetryAfter() {
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(" "));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon"));
+    }
+
+    @Test
+    void backoffStaysWithinExponentialCeiling() {
+        for (int attempt = 0; attempt < 12; attempt++) {
+            long ceiling = Math.min(MAX_DELAY, BASE_DELAY << attempt);
+            for (int i = 0; i < 200; i++) {
+                long delay = RetryPolicy.backoffMillis(attempt, -1);
+                assertTrue(delay >= 0 && delay <= ceiling, "attempt " + attempt + " delay " + delay);
+            }
+        }
+    }
+
+    @Test
+    void backoffHonoursRetryAfter() {
+        for (int i = 0; i < 200; i++) {
+            long delay = RetryPolicy.backoffMillis(0, 3_000);
+            assertTrue(delay >= 3_000 && delay <= MAX_DELAY, "delay " + delay);
+        }
+        // Longer than a player should wait: give up instead
+        assertEquals(-1, RetryPolicy.backoffMillis(0, MAX_DELAY + 1));
+    }
+
+    @Test
+    void classifiesStatuses() {
+        assertTrue(RetryPolicy.isRetryableStatus(429));
+        assertTrue(RetryPolicy.isRetryableStatus(503));
+        assertFalse(RetryPolicy.isRetryableStatus(401));
+        assertFalse(RetryPolicy.isRetryableStatus(400));
+    }
+}
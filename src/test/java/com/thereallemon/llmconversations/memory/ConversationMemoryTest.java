@@ -0,0 +1,108 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConversationMemoryTest {
+
+    @BeforeEach
+    void loadConfig() {
+        InMemoryConfig.load();
+    }
+
+    @AfterEach
+    void resetConfig() {
+        InMemoryConfig.load();
+    }
+
+    @Test
+    void keepsNewestSummariesFirst() {
+        ConversationMemory memory = new ConversationMemory();
+        for (int i = 1; i <= 5; i++) {
+            memory.addSummary("summary " + i, 3);
+        }
+        assertEquals(List.of("summary 5", "summary 4", "summary 3"), memory.getSummaries());
+        assertEquals(3, memory.size());
+    }
+
+    @Test
+    void ringKeepsOrderWhenItGrowsAfterWrapping() {
+        ConversationMemory memory = new ConversationMemory();
+        for (int i = 1; i <= 6; i++) {
+            memory.addSummary("summary " + i, 4);
+        }
+        for (int i = 7; i <= 9; i++) {
+            memory.addSummary("summary " + i, 8);
+        }
+        assertEquals(List.of("summary 9", "summary 8", "summary 7", "summary 6", "summary 5", "summary 4", "summary 3"),
+            memory.getSummaries());
+    }
+
+    @Test
+    void compressedOldEntriesReadBackUnchanged() {
+        InMemoryConfig.load(Map.of("memory.compress_old_memories", true));
+
+        ConversationMemory memory = new ConversationMemory();
+        String longSummary = "We talked about the wheat harvest, the new town hall and the raids on the guard tower. ";
+        for (int i = 1; i <= 10; i++) {
+            memory.addSummary(i + ": " + longSummary.repeat(3), 20);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals((10 - i) + ": " + longSummary.repeat(3), memory.getSummaries().get(i));
+        }
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        ConversationMemory memory = new ConversationMemory();
+        memory.addSummary("one", 5);
+        memory.addSummary("two", 5);
+        memory.clearMemory();
+
+        assertEquals(List.of(), memory.getSummaries());
+        memory.addSummary("three", 5);
+        assertEquals(List.of("three"), memory.getSummaries());
+    }
+
+    @Test
+    void findRelevantPrefersMatchingSummaries() {
+        ConversationMemory memory = memoryOf(
+            "Steve asked me to build a wheat farm near the river",
+            "We discussed the raid on the guard tower",
+            "Steve brought iron for the blacksmith",
+            "The baker is worried about bread running out",
+            "The school children played by the lake");
+
+        // "farms" matches the oldest summary; the other slot goes to the newest, as nothing else matches
+        assertEquals(List.of(
+                "The school children played by the lake",
+                "Steve asked me to build a wheat farm near the river"),
+            memory.findRelevant("How are the farms doing?", 2));
+    }
+
+    @Test
+    void findRelevantFallsBackToRecency() {
+        ConversationMemory memory = memoryOf("one apple", "two pears", "three plums", "four figs");
+
+        assertEquals(List.of("four figs", "three plums"), memory.findRelevant(null, 2));
+        // Only stop words and short words, nothing to rank by
+        assertEquals(List.of("four figs", "three plums"), memory.findRelevant("what about it", 2));
+        // Fewer summaries than the limit: all of them
+        assertEquals(memory.getSummaries(), memory.findRelevant("plums", 10));
+    }
+
+    private static ConversationMemory memoryOf(String... oldestFirst) {
+        ConversationMemory memory = new ConversationMemory();
+        for (String summary : oldestFirst) {
+            memory.addSummary(summary, 100);
+        }
+        return memory;
+    }
+}
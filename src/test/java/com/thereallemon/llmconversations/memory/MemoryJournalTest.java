@@ -0,0 +1,172 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryJournalTest {
+    private static final UUID PLAYER = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadConfig() {
+        InMemoryConfig.load();
+    }
+
+    @Test
+    void replaysRecordsInOrder() {
+        MemoryJournal journal = new MemoryJournal(dir.resolve("colony.journal"));
+        journal.append(List.of(
+            added(1, PLAYER, "Talked about the harvest"),
+            added(2, null, "With Steve: talked about the harvest"),
+            MemoryJournal.Change.removedOldest().toEntry(3, 7, PLAYER),
+            MemoryJournal.Change.cleared().toEntry(4, 7, null)));
+        MemoryJournal.awaitWrites();
+
+        List<MemoryJournal.Entry> read = new ArrayList<>();
+        assertEquals(4, journal.replay(0, read::add));
+        assertEquals(List.of(1L, 2L, 3L, 4L), read.stream().map(MemoryJournal.Entry::seq).toList());
+        assertEquals(PLAYER, read.get(0).playerId());
+        assertEquals("Talked about the harvest", read.get(0).summary());
+        assertEquals(null, read.get(1).playerId());
+    }
+
+    @Test
+    void replaySkipsRecordsInSnapshot() {
+        MemoryJournal journal = new MemoryJournal(dir.resolve("colony.journal"));
+        journal.append(List.of(added(1, PLAYER, "one"), added(2, PLAYER, "two"), added(3, PLAYER, "three")));
+        MemoryJournal.awaitWrites();
+
+        List<MemoryJournal.Entry> read = new ArrayList<>();
+        assertEquals(3, journal.replay(2, read::add));
+        assertEquals(1, read.size());
+        assertEquals("three", read.get(0).summary());
+
+        // Nothing newer than the snapshot keeps its sequence number
+        assertEquals(5, journal.replay(5, entry -> { }));
+    }
+
+    @Test
+    void truncatedLastRecordIsSkipped() throws IOException {
+        Path path = dir.resolve("colony.journal");
+        MemoryJournal journal = new MemoryJournal(path);
+        journal.append(List.of(added(1, PLAYER, "one"), added(2, PLAYER, "two"), added(3, PLAYER, "a longer third summary")));
+        MemoryJournal.awaitWrites();
+
+        // Crash in the middle of writing the last record
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        List<MemoryJournal.Entry> read = new ArrayList<>();
+        assertEquals(2, new MemoryJournal(path).replay(0, read::add));
+        assertEquals(List.of("one", "two"), read.stream().map(MemoryJournal.Entry::summary).toList());
+    }
+
+    @Test
+    void corruptLengthIsTreatedAsTornWrite() throws IOException {
+        Path path = dir.resolve("colony.journal");
+        MemoryJournal journal = new MemoryJournal(path);
+        journal.append(List.of(added(1, PLAYER, "one")));
+        MemoryJournal.awaitWrites();
+        long firstRecord = Files.size(path);
+        journal.append(List.of(added(2, PLAYER, "two")));
+        MemoryJournal.awaitWrites();
+
+        // Summary length of the second record: after seq, citizen, player flag and ID, op and time
+        byte[] bytes = Files.readAllBytes(path);
+        int lengthOffset = (int) firstRecord + 8 + 4 + 1 + 16 + 1 + 8;
+        bytes[lengthOffset] = (byte) 0x7F;
+        Files.write(path, bytes);
+
+        List<MemoryJournal.Entry> read = new ArrayList<>();
+        assertEquals(1, new MemoryJournal(path).replay(0, read::add));
+        assertEquals(1, read.size());
+    }
+
+    @Test
+    void replayAfterCompactionIsIdempotent() throws InterruptedException {
+        Path path = dir.resolve("colony.journal");
+        MemoryJournal journal = new MemoryJournal(path);
+        journal.append(List.of(
+            added(1, PLAYER, "one"), added(2, PLAYER, "two"), added(3, PLAYER, "three"),
+            MemoryJournal.Change.removedOldest().toEntry(4, 7, PLAYER), added(5, PLAYER, "five")));
+        MemoryJournal.awaitWrites();
+
+        // Snapshot taken after record 3, rebuilt from the journal
+        ConversationMemory snapshot = new ConversationMemory();
+        journal.replay(0, entry -> {
+            if (entry.seq() <= 3) {
+                entry.applyTo(snapshot);
+            }
+        });
+        ConversationMemory expected = replayed(journal, 0, new ConversationMemory());
+
+        compact(journal, 3);
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+
+        // Snapshot plus what compaction kept gives the same memory as the whole journal did
+        List<MemoryJournal.Entry> kept = new ArrayList<>();
+        assertEquals(5, journal.replay(3, kept::add));
+        assertEquals(List.of(4L, 5L), kept.stream().map(MemoryJournal.Entry::seq).toList());
+        assertEquals(expected.getSummaries(), replayed(journal, 3, copyOf(snapshot)).getSummaries());
+
+        // Compacting or replaying again changes nothing
+        compact(journal, 3);
+        assertEquals(expected.getSummaries(), replayed(journal, 3, copyOf(snapshot)).getSummaries());
+        assertEquals(5, journal.replay(5, entry -> { }));
+    }
+
+    @Test
+    void compactionOfEverythingRemovesTheFile() throws InterruptedException {
+        Path path = dir.resolve("colony.journal");
+        MemoryJournal journal = new MemoryJournal(path);
+        journal.append(List.of(added(1, PLAYER, "one"), added(2, PLAYER, "two")));
+        MemoryJournal.awaitWrites();
+        assertTrue(journal.size() > 0);
+
+        compact(journal, 2);
+        assertFalse(Files.exists(path));
+        assertEquals(0, journal.size());
+        assertEquals(2, journal.replay(2, entry -> { }));
+    }
+
+    private static MemoryJournal.Entry added(long seq, UUID playerId, String summary) {
+        return MemoryJournal.Change.added(summary, 1000 + seq).toEntry(seq, 7, playerId);
+    }
+
+    private static void compact(MemoryJournal journal, long upToSeq) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        journal.compact(upToSeq, done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static ConversationMemory replayed(MemoryJournal journal, long afterSeq, ConversationMemory memory) {
+        journal.replay(afterSeq, entry -> entry.applyTo(memory));
+        return memory;
+    }
+
+    private static ConversationMemory copyOf(ConversationMemory memory) {
+        ConversationMemory copy = new ConversationMemory();
+        for (MemoryJournal.Change change : memory.fullChanges()) {
+            change.toEntry(0, 7, PLAYER).applyTo(copy);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,106 @@
+package com.thereallemon.llmconversations.memory;
+
+import com.thereallemon.llmconversations.config.InMemoryConfig;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryShardTest {
+    private static final UUID PLAYER = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void setUp() {
+        InMemoryConfig.load();
+        SharedConstants.tryDetectVersion(); // Saved data is stamped with the game's data version
+    }
+
+    @Test
+    void journalIsKeptWhenSnapshotWriteFails() throws IOException {
+        Path journalPath = dir.resolve("shard.journal");
+        MemoryShard shard = shardWithMemory(journalPath, "Talked about the harvest");
+
+        // A non-empty directory where the snapshot should go: the write fails and vanilla only logs it
+        Path blocked = Files.createDirectory(dir.resolve("shard.dat"));
+        Files.createFile(blocked.resolve("in-the-way"));
+        shard.setDirty();
+        shard.save(blocked.toFile(), null);
+        MemoryJournal.awaitWrites();
+
+        assertEquals(1, records(journalPath).size());
+        assertTrue(shard.isDirty(), "the snapshot should be retried on the next save");
+    }
+
+    @Test
+    void journalIsCompactedOnlyAfterSnapshotIsWritten() throws IOException {
+        Path journalPath = dir.resolve("shard.journal");
+        MemoryShard shard = shardWithMemory(journalPath, "Talked about the harvest");
+
+        File file = dir.resolve("shard.dat").toFile();
+        shard.setDirty();
+        shard.save(file, null);
+        MemoryJournal.awaitWrites();
+        assertFalse(Files.exists(journalPath), "the snapshot includes every journaled change");
+
+        // Later changes are journaled again, on top of the snapshot
+        ConversationMemory memory = shard.getMemory(1, PLAYER);
+        memory.addSummary("Talked about the raid", 10);
+        shard.saveMemory(1, PLAYER, memory);
+        MemoryJournal.awaitWrites();
+        assertEquals(1, records(journalPath).size());
+
+        // Snapshot plus journal restore both
+        CompoundTag written = NbtIo.readCompressed(file.toPath(), NbtAccounter.unlimitedHeap());
+        MemoryShard loaded = MemoryShard.load(written.getCompound("data"), null);
+        loaded.attachJournal(new MemoryJournal(journalPath), "test");
+        assertEquals(List.of("Talked about the raid", "Talked about the harvest"),
+            loaded.getMemory(1, PLAYER).getSummaries());
+    }
+
+    @Test
+    void saveWithoutChangesLeavesJournalAlone() {
+        Path journalPath = dir.resolve("shard.journal");
+        MemoryShard shard = shardWithMemory(journalPath, "Talked about the harvest");
+
+        // Not dirty: nothing is written, so nothing may be compacted
+        shard.save(dir.resolve("shard.dat").toFile(), null);
+        MemoryJournal.awaitWrites();
+
+        assertFalse(Files.exists(dir.resolve("shard.dat")));
+        assertEquals(1, records(journalPath).size());
+    }
+
+    private static MemoryShard shardWithMemory(Path journalPath, String summary) {
+        MemoryShard shard = new MemoryShard();
+        shard.attachJournal(new MemoryJournal(journalPath), "test");
+        ConversationMemory memory = shard.getMemory(1, PLAYER);
+        memory.addSummary(summary, 10);
+        shard.saveMemory(1, PLAYER, memory);
+        MemoryJournal.awaitWrites();
+        return shard;
+    }
+
+    private static List<MemoryJournal.Entry> records(Path journalPath) {
+        List<MemoryJournal.Entry> records = new ArrayList<>();
+        new MemoryJournal(journalPath).replay(0, records::add);
+        return records;
+    }
+}
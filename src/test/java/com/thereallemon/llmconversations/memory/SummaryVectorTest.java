@@ -0,0 +1,39 @@
+package com.thereallemon.llmconversations.memory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SummaryVectorTest {
+
+    @Test
+    void identicalTextScoresHighestAndUnrelatedZero() {
+        SummaryVector[] documents = {
+            SummaryVector.of("iron tools for the blacksmith"),
+            SummaryVector.of("wheat harvest by the river"),
+            SummaryVector.of("iron ore from the mine")
+        };
+        float[] scores = SummaryVector.score(SummaryVector.of("iron tools for the blacksmith"), documents);
+
+        assertEquals(1.0f, scores[0], 1e-4f);
+        assertEquals(0.0f, scores[1]);
+        assertTrue(scores[2] > 0 && scores[2] < scores[0]);
+    }
+
+    @Test
+    void ignoresCaseStopWordsAndPlurals() {
+        SummaryVector[] documents = {SummaryVector.of("the farm")};
+        assertEquals(1.0f, SummaryVector.score(SummaryVector.of("FARMS"), documents)[0], 1e-4f);
+
+        assertTrue(SummaryVector.of("what about the player and it").isEmpty());
+        // "ss" is not a plural, so "boss" must not be folded into "bos"
+        assertEquals(0.0f, SummaryVector.score(SummaryVector.of("boss"), new SummaryVector[] {SummaryVector.of("bos")})[0]);
+    }
+
+    @Test
+    void emptyQueryScoresZero() {
+        SummaryVector[] documents = {SummaryVector.of("wheat harvest")};
+        assertEquals(0.0f, SummaryVector.score(SummaryVector.of(""), documents)[0]);
+    }
+}
@@ -0,0 +1,69 @@
+package com.thereallemon.llmconversations.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsContainTheirValues() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = LatencyHistogram.bucketOf(value);
+            long lower = bucket == 0 ? 0 : LatencyHistogram.upperBound(bucket - 1);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(lower <= value && (value < upper || upper == Long.MAX_VALUE),
+                "value " + value + " in bucket " + bucket);
+        }
+        for (long value = 0; value < 1000; value++) {
+            assertTrue(value < LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value)));
+        }
+    }
+
+    @Test
+    void bucketsAreNarrow() {
+        for (long value = 64; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 / 2) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            double width = LatencyHistogram.upperBound(bucket) - LatencyHistogram.upperBound(bucket - 1);
+            assertTrue(width / value <= 1.0 / 16, "bucket of " + value + " is " + width + " wide");
+        }
+    }
+
+    @Test
+    void percentilesWithinOneSubBucket() {
+        Random random = new Random(7);
+        long[] values = new long[50_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal around 200 ms, like request latencies
+            values[i] = (long) (Math.exp(Math.log(200e6) + random.nextGaussian()));
+            histogram.recordNanos(values[i]);
+        }
+        Arrays.sort(values);
+
+        // An estimate is the upper bound of the value's bucket, at most 1/16 (about 6%) above it
+        for (double percentile : new double[] {1, 10, 50, 90, 99, 99.9}) {
+            double exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1] / 1e6;
+            double estimate = histogram.getPercentileMillis(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * (1 + 1.0 / 16),
+                "p" + percentile + " estimate " + estimate + " exact " + exact);
+        }
+        assertEquals(values[values.length - 1] / 1e6, histogram.getPercentileMillis(100), 1e-9);
+    }
+
+    @Test
+    void emptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(50));
+
+        histogram.recordNanos(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMaxMillis());
+    }
+}
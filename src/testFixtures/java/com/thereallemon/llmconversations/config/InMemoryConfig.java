@@ -0,0 +1,41 @@
+package com.thereallemon.llmconversations.config;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import net.neoforged.fml.config.IConfigSpec;
+
+import java.util.Map;
+
+/**
+ * Loads {@link LLMConfig} in memory so mod code can run outside the game (shared by tests and benchmarks)
+ */
+public class InMemoryConfig {
+
+    /**
+     * Load the default config
+     */
+    public static void load() {
+        load(Map.of());
+    }
+
+    /**
+     * Load the default config with some values overridden
+     * @param overrides Values by dotted path, e.g. "network.max_concurrent_requests"
+     */
+    public static void load(Map<String, Object> overrides) {
+        CommentedConfig config = CommentedConfig.inMemory();
+        LLMConfig.CLIENT_SPEC.correct(config);
+        overrides.forEach(config::set);
+
+        LLMConfig.CLIENT_SPEC.acceptConfig(new IConfigSpec.ILoadedConfig() {
+            @Override
+            public CommentedConfig config() {
+                return config;
+            }
+
+            @Override
+            public void save() {
+                // Nothing to save to
+            }
+        });
+    }
+}